@@ -0,0 +1,49 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Creates in-memory H2 databases with the table of
+ * {@link xyz.joestr.dbwrapper.benchmark.BenchmarkEntity}.
+ *
+ * @author Joel Strasser (joestr)
+ */
+final class BenchmarkDatabase {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Returns the connection string of a new, empty database.
+     */
+    static String newConnectionString() {
+
+        return "jdbc:h2:mem:benchmark" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Creates the table through a connection of the handler.
+     */
+    static void createTable(DatabaseConnectionHandler handler) throws SQLException {
+
+        Connection connection = handler.acquireConnection();
+
+        try (Statement statement = connection.createStatement()) {
+
+            statement.execute(
+                "CREATE TABLE benchmark_entity ("
+                + "id INT PRIMARY KEY, created BIGINT, score DOUBLE PRECISION, active BOOLEAN, "
+                + "name VARCHAR(64), description VARCHAR(256), quantity INT, reference BIGINT)"
+            );
+        } finally {
+            handler.releaseConnection(connection);
+        }
+    }
+}
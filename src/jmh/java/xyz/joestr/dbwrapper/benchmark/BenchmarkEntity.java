@@ -0,0 +1,55 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+import xyz.joestr.dbwrapper.annotations.WrappedTable;
+
+/**
+ * An entity with a typical mix of column types.
+ *
+ * @author Joel Strasser (joestr)
+ */
+@WrappedTable(name = "benchmark_entity")
+public class BenchmarkEntity {
+
+    @WrappedField(name = "id", primaryKey = true)
+    private int id;
+
+    @WrappedField(name = "created")
+    private long created;
+
+    @WrappedField(name = "score")
+    private double score;
+
+    @WrappedField(name = "active")
+    private boolean active;
+
+    @WrappedField(name = "name")
+    private String name;
+
+    @WrappedField(name = "description")
+    private String description;
+
+    @WrappedField(name = "quantity")
+    private Integer quantity;
+
+    @WrappedField(name = "reference")
+    private Long reference;
+
+    public BenchmarkEntity() {
+    }
+
+    public BenchmarkEntity(int id) {
+        this.id = id;
+        this.created = 1500000000000L + id;
+        this.score = id / 3.0;
+        this.active = id % 2 == 0;
+        this.name = "name-" + id;
+        this.description = "description of entity " + id;
+        this.quantity = id % 100;
+        this.reference = (long) id * 31;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
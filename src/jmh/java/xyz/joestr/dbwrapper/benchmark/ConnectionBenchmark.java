@@ -0,0 +1,71 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Measures acquiring and releasing a connection through the
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}: opened per call,
+ * leased from the pool or the persistent connection of the thread.
+ *
+ * @author Joel Strasser (joestr)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    @Param({"unpooled", "pooled", "persistent"})
+    private String mode;
+
+    private DatabaseConnectionHandler handler;
+
+    @Setup
+    public void setUp() throws SQLException {
+
+        String connectionString = BenchmarkDatabase.newConnectionString();
+
+        this.handler = this.mode.equals("pooled")
+            ? new DatabaseConnectionHandler(connectionString, 1, 1)
+            : new DatabaseConnectionHandler(connectionString);
+
+        if (this.mode.equals("persistent")) {
+            this.handler.setPersistentConnection(true);
+            this.handler.connect();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        this.handler.close();
+    }
+
+    @Benchmark
+    public Connection acquireAndRelease() throws SQLException {
+
+        Connection connection = this.handler.acquireConnection();
+
+        this.handler.releaseConnection(connection);
+
+        return connection;
+    }
+}
@@ -0,0 +1,148 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.joestr.dbwrapper.EntityAccessorGenerator;
+import xyz.joestr.dbwrapper.EntityMapper;
+
+/**
+ * Compares hydrating one row through {@link java.lang.reflect.Field#set}
+ * as the wrappers did per column, through method handles and through a
+ * generated accessor. The row is read from an in-memory H2 result set, so the
+ * driver cost is the same for every variant.
+ *
+ * @author Joel Strasser (joestr)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMapperBenchmark {
+
+    private static final List<String> FIELD_NAMES = Arrays.asList(
+        "id", "created", "score", "active", "name", "description", "quantity", "reference"
+    );
+
+    private Connection connection;
+    private PreparedStatement selectStatement;
+    private PreparedStatement bindStatement;
+    private ResultSet resultSet;
+    private EntityMapper<BenchmarkEntity> methodHandleMapper;
+    private EntityMapper<BenchmarkEntity> generatedMapper;
+    private BenchmarkEntity entity;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:");
+        this.selectStatement = this.connection.prepareStatement(
+            "SELECT 1, CAST(1500000000000 AS BIGINT), CAST(0.5 AS DOUBLE PRECISION), TRUE, 'name', 'description', 7, CAST(31 AS BIGINT)"
+        );
+        this.resultSet = this.selectStatement.executeQuery();
+        this.resultSet.next();
+        this.bindStatement = this.connection.prepareStatement("SELECT ?, ?, ?, ?, ?, ?, ?, ?");
+
+        EntityAccessorGenerator.setEnabled(false);
+        this.methodHandleMapper = new EntityMapper<>(BenchmarkEntity.class, FIELD_NAMES);
+
+        EntityAccessorGenerator.setEnabled(true);
+        this.generatedMapper = new EntityMapper<>(BenchmarkEntity.class, FIELD_NAMES);
+
+        if (!this.generatedMapper.isGenerated()) {
+            throw new IllegalStateException("No accessor was generated on this runtime");
+        }
+
+        this.entity = new BenchmarkEntity(1);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        this.connection.close();
+    }
+
+    @Benchmark
+    public BenchmarkEntity hydrateFieldSet() throws Exception {
+
+        BenchmarkEntity resultObject = BenchmarkEntity.class.newInstance();
+
+        for (int i = 0; i < FIELD_NAMES.size(); i++) {
+
+            Field field_ = BenchmarkEntity.class.getDeclaredField(FIELD_NAMES.get(i));
+
+            field_.setAccessible(true);
+
+            Object value = this.resultSet.getObject(i + 1);
+
+            if (value != null) {
+                field_.set(resultObject, value);
+            }
+        }
+
+        return resultObject;
+    }
+
+    @Benchmark
+    public BenchmarkEntity hydrateMethodHandles() throws SQLException {
+
+        return this.methodHandleMapper.hydrate(this.resultSet);
+    }
+
+    @Benchmark
+    public BenchmarkEntity hydrateGenerated() throws SQLException {
+
+        return this.generatedMapper.hydrate(this.resultSet);
+    }
+
+    @Benchmark
+    public PreparedStatement bindFieldGet() throws Exception {
+
+        for (int i = 0; i < FIELD_NAMES.size(); i++) {
+
+            Field field_ = BenchmarkEntity.class.getDeclaredField(FIELD_NAMES.get(i));
+
+            field_.setAccessible(true);
+
+            this.bindStatement.setObject(i + 1, field_.get(this.entity));
+        }
+
+        return this.bindStatement;
+    }
+
+    @Benchmark
+    public PreparedStatement bindMethodHandles() throws SQLException {
+
+        this.methodHandleMapper.bind(this.bindStatement, this.entity, 0);
+
+        return this.bindStatement;
+    }
+
+    @Benchmark
+    public PreparedStatement bindGenerated() throws SQLException {
+
+        this.generatedMapper.bind(this.bindStatement, this.entity, 0);
+
+        return this.bindStatement;
+    }
+}
@@ -0,0 +1,82 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Measures reading a whole table through the wrapper, from executing the
+ * query to the hydrated objects. The width selects either all eight columns
+ * or a projection of two.
+ *
+ * @author Joel Strasser (joestr)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+
+    private static final List<String> NARROW_FIELD_NAMES = Arrays.asList("id", "name");
+
+    @Param({"10", "1000", "10000"})
+    private int rowCount;
+
+    @Param({"2", "8"})
+    private int columnCount;
+
+    private DatabaseConnectionHandler handler;
+    private DatabaseAnnotationWrapper<BenchmarkEntity> wrapper;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        this.handler = new DatabaseConnectionHandler(BenchmarkDatabase.newConnectionString(), 1, 1);
+
+        BenchmarkDatabase.createTable(this.handler);
+
+        this.wrapper = new DatabaseAnnotationWrapper<>(BenchmarkEntity.class, this.handler);
+
+        List<BenchmarkEntity> entities = new ArrayList<>(this.rowCount);
+
+        for (int i = 0; i < this.rowCount; i++) {
+            entities.add(new BenchmarkEntity(i));
+        }
+
+        this.wrapper.insertAll(entities);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        this.handler.close();
+    }
+
+    @Benchmark
+    public Collection<BenchmarkEntity> select() throws Exception {
+
+        return this.columnCount == 2
+            ? this.wrapper.selectFields(NARROW_FIELD_NAMES)
+            : this.wrapper.select();
+    }
+}
@@ -0,0 +1,99 @@
+package xyz.joestr.dbwrapper.benchmark;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Measures the throughput of the writing operations of the wrapper. Inserts
+ * use new keys, so the table grows during a run; deleting is measured
+ * together with the insert of the deleted row.
+ *
+ * @author Joel Strasser (joestr)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private DatabaseConnectionHandler handler;
+    private DatabaseAnnotationWrapper<BenchmarkEntity> wrapper;
+    private BenchmarkEntity updatedEntity;
+    private int nextId = 1;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        this.handler = new DatabaseConnectionHandler(BenchmarkDatabase.newConnectionString(), 1, 1);
+
+        BenchmarkDatabase.createTable(this.handler);
+
+        this.wrapper = new DatabaseAnnotationWrapper<>(BenchmarkEntity.class, this.handler);
+        this.updatedEntity = new BenchmarkEntity(0);
+        this.wrapper.insert(this.updatedEntity);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+
+        this.handler.close();
+    }
+
+    @Benchmark
+    public int insert() throws Exception {
+
+        return this.wrapper.insert(new BenchmarkEntity(this.nextId++));
+    }
+
+    @Benchmark
+    public int update() throws SQLException {
+
+        this.updatedEntity.setScore(this.nextId++);
+
+        return this.wrapper.update(this.updatedEntity);
+    }
+
+    @Benchmark
+    public int insertAndDelete() throws Exception {
+
+        BenchmarkEntity entity = new BenchmarkEntity(this.nextId++);
+
+        this.wrapper.insert(entity);
+
+        return this.wrapper.delete(entity);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertAll() throws SQLException {
+
+        List<BenchmarkEntity> entities = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            entities.add(new BenchmarkEntity(this.nextId++));
+        }
+
+        return this.wrapper.insertAll(entities);
+    }
+}
@@ -0,0 +1,1796 @@
+package xyz.joestr.dbwrapper;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
+
+/**
+ * Base class of the wrappers. Holds the operations on the table once the
+ * table name, the column names and the field names are resolved. The bulk
+ * writes, the paged and parallel reads, the projections and aggregates, the
+ * bookkeeping of snapshots and cached rows and the reporting of the
+ * statements are left to package-private helpers.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public abstract class AbstractDatabaseWrapper<T> {
+
+    // The connection to the database
+    protected final DatabaseConnectionHandler databaseConnectionHandler;
+    protected final Class<T> clazz;
+    private final String tableName;
+    private final List<String> columnNames;
+    private final List<String> fieldNames;
+    private final Map<String, Integer> fieldIndices;
+    private final List<String> keyColumnNames;
+    private final int[] keyIndices;
+    private final EntityMapper<T> entityMapper;
+    private final String keyMatchSql;
+    private final String selectSql;
+    private final String findSql;
+    private final String insertSql;
+    private final String updateSql;
+    private final String deleteSql;
+    private final Map<BitSet, String> partialUpdateSql;
+    private final Map<DatabaseDialect, Optional<String>> upsertSql = new ConcurrentHashMap<>();
+    private final EntityMetadata<T> metadata;
+    private final StatementObserver statementObserver;
+    private final BatchExecutor<T> batchExecutor;
+    private final EntityScanner<T> entityScanner;
+    private final EntityProjector<T> entityProjector;
+    private final EntityTracker<T> entityTracker;
+    private volatile int batchSize = 1000;
+    private volatile boolean multiRowInsert = false;
+    private volatile int fetchSize = 1000;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.AbstractDatabaseWrapper}.
+     *
+     * @param clazz The {@link java.lang.Class}
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param tableName The name of the table
+     * @param columnNames The names of the columns
+     * @param fieldNames The names of the fields in column order
+     * @param keyColumnNames The names of the primary key columns; if empty,
+     * updates and deletes match on all columns
+     * @throws IllegalAccessException If the access is prohibited
+     * @throws IllegalArgumentException If a field or a key column does not
+     * exist
+     */
+    protected AbstractDatabaseWrapper(Class<T> clazz, DatabaseConnectionHandler databaseConnectionHandler, String tableName, Collection<String> columnNames, Collection<String> fieldNames, Collection<String> keyColumnNames) throws IllegalAccessException {
+
+        this(databaseConnectionHandler, new EntityMetadata<>(clazz, tableName, columnNames, fieldNames, keyColumnNames));
+    }
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.AbstractDatabaseWrapper} from metadata
+     * which may be shared with other wrappers of the class.
+     *
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param metadata The {@link xyz.joestr.dbwrapper.EntityMetadata}
+     */
+    AbstractDatabaseWrapper(DatabaseConnectionHandler databaseConnectionHandler, EntityMetadata<T> metadata) {
+
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.clazz = metadata.clazz;
+        this.tableName = metadata.tableName;
+        this.columnNames = metadata.columnNames;
+        this.fieldNames = metadata.fieldNames;
+        this.fieldIndices = metadata.fieldIndices;
+        this.keyColumnNames = metadata.keyColumnNames;
+        this.keyIndices = metadata.keyIndices;
+        this.entityMapper = metadata.entityMapper;
+        this.keyMatchSql = metadata.keyMatchSql;
+        this.selectSql = metadata.selectSql;
+        this.findSql = metadata.findSql;
+        this.insertSql = metadata.insertSql;
+        this.updateSql = metadata.updateSql;
+        this.deleteSql = metadata.deleteSql;
+        this.partialUpdateSql = metadata.partialUpdateSql;
+        this.metadata = metadata;
+        this.statementObserver = new StatementObserver(databaseConnectionHandler, this.clazz, this.tableName);
+        this.batchExecutor = new BatchExecutor<>(databaseConnectionHandler, metadata, this.statementObserver, this::invalidateQueryResults);
+        this.entityScanner = new EntityScanner<>(this, databaseConnectionHandler, metadata, this.statementObserver);
+        this.entityProjector = new EntityProjector<>(this, databaseConnectionHandler, metadata, this.statementObserver);
+        this.entityTracker = new EntityTracker<>(databaseConnectionHandler, metadata);
+    }
+
+    /**
+     * Selects all entries in the table and bundles them in a
+     * {@link java.util.Collection}.
+     *
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @throws InstantiationException If the instantiation is prohibited
+     * @throws IllegalAccessException If the access is prohibited
+     * @throws NoSuchFieldException If the field does not exist
+     */
+    public Collection<T> select() throws SQLException, InstantiationException, IllegalAccessException, NoSuchFieldException {
+
+        return this.query(this.selectSql);
+    }
+
+    /**
+     * Selects all entries in the table witch match a given condition and
+     * bundles them in a {@link java.util.Collection}. This method does not
+     * prevent SQL injections!
+     *
+     * @param condition The condition as a {@link java.lang.String}
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws NullPointerException If condition is null
+     * @throws SQLException If something SQL relevant fails
+     * @throws InstantiationException If the instantiation is prohibited
+     * @throws IllegalAccessException If the access is prohibited
+     * @throws NoSuchFieldException If the field does not exist
+     */
+    public Collection<T> select(String condition) throws NullPointerException, SQLException, InstantiationException, IllegalAccessException, NoSuchFieldException {
+
+        if (condition == null) {
+            throw new NullPointerException("condition can not be null!");
+        }
+
+        return this.query(this.selectSql + " WHERE " + condition);
+    }
+
+    /**
+     * Selects all entries in the table witch match the given criteria and
+     * bundles them in a {@link java.util.Collection}. The values are bound as
+     * parameters.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Collection<T> select(DatabaseCriteria criteria) throws SQLException {
+
+        DatabaseCriteria.Compiled compiled = this.compile(criteria, true);
+
+        return this.query(this.selectSql + compiled.sql, compiled.parameters);
+    }
+
+    /**
+     * Selects the entry with the given primary key. If an
+     * {@link xyz.joestr.dbwrapper.EntityCache} is set, it is asked first,
+     * except in a transaction, which may have changed the entry.
+     *
+     * @param keyValues The values of the primary key columns in the order of
+     * {@link #getKeyColumnNames()}
+     * @return The object of {@link java.lang.reflect.Type} or {@code null} if
+     * there is no such entry
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws IllegalArgumentException If the number of values does not match
+     * the primary key
+     * @throws SQLException If something SQL relevant fails
+     */
+    public T findById(Object... keyValues) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        if (keyValues.length != this.keyIndices.length) {
+            throw new IllegalArgumentException(
+                "Expected " + this.keyIndices.length + " key values but got " + keyValues.length + "!"
+            );
+        }
+
+        EntityCache cache = this.entityTracker.getEntityCache();
+
+        if (cache != null && this.databaseConnectionHandler.getTransaction() == null) {
+
+            Object[] values = cache.get(Arrays.asList(keyValues));
+
+            if (values != null) {
+                return this.entityTracker.restore(values);
+            }
+        }
+
+        Collection<T> result = this.query(this.findSql, Arrays.asList(keyValues));
+
+        return result.isEmpty() ? null : result.iterator().next();
+    }
+
+    /**
+     * Selects only some columns of all entries in the table.
+     *
+     * @param fieldNames The names of the fields to read
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #selectFields(java.util.Collection, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public Collection<T> selectFields(Collection<String> fieldNames) throws SQLException {
+
+        return this.selectFields(fieldNames, new DatabaseCriteria());
+    }
+
+    /**
+     * Selects only some columns of the entries witch match the given
+     * criteria. All other fields keep the value the no-argument constructor
+     * gave them.
+     * <p>
+     * As the objects do not match their rows, they are neither remembered for
+     * {@link #save(java.lang.Object)} nor put into any cache.
+     *
+     * @param fieldNames The names of the fields to read
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws IllegalArgumentException If {@code fieldNames} is empty or a
+     * field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Collection<T> selectFields(Collection<String> fieldNames, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.selectFields(fieldNames, criteria);
+    }
+
+    /**
+     * Selects the columns a class maps of all entries in the table.
+     *
+     * @param <P> The projected class
+     * @param projectionClass The {@link java.lang.Class}
+     * @return A {@link java.util.Collection} of the projected class
+     * @throws SQLException If something SQL relevant fails
+     * @see #selectAs(java.lang.Class, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public <P> Collection<P> selectAs(Class<P> projectionClass) throws SQLException {
+
+        return this.selectAs(projectionClass, new DatabaseCriteria());
+    }
+
+    /**
+     * Selects the columns a class maps of the entries witch match the given
+     * criteria. The class maps its fields with
+     * {@link xyz.joestr.dbwrapper.annotations.WrappedField} to columns of this
+     * table, usually a small subset of them, and needs a no-argument
+     * constructor.
+     *
+     * @param <P> The projected class
+     * @param projectionClass The {@link java.lang.Class}
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return A {@link java.util.Collection} of the projected class
+     * @throws IllegalArgumentException If the class maps no field, a column
+     * is not mapped by this wrapper or a field of the criteria is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public <P> Collection<P> selectAs(Class<P> projectionClass, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.selectAs(projectionClass, criteria);
+    }
+
+    /**
+     * Opens an iterator over all entries in the table. The rows are hydrated
+     * one at a time while iterating and the connection is held until the
+     * iterator is exhausted or closed.
+     *
+     * @return An {@link xyz.joestr.dbwrapper.EntityIterator} of
+     * {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public EntityIterator<T> iterate() throws SQLException {
+
+        return this.openIterator(this.selectSql, Collections.emptyList());
+    }
+
+    /**
+     * Opens an iterator over all entries in the table witch match a given
+     * condition. This method does not prevent SQL injections!
+     *
+     * @param condition The condition as a {@link java.lang.String}
+     * @return An {@link xyz.joestr.dbwrapper.EntityIterator} of
+     * {@link java.lang.reflect.Type}
+     * @throws NullPointerException If condition is null
+     * @throws SQLException If something SQL relevant fails
+     * @see #iterate()
+     */
+    public EntityIterator<T> iterate(String condition) throws NullPointerException, SQLException {
+
+        if (condition == null) {
+            throw new NullPointerException("condition can not be null!");
+        }
+
+        return this.openIterator(this.selectSql + " WHERE " + condition, Collections.emptyList());
+    }
+
+    /**
+     * Opens an iterator over all entries in the table witch match the given
+     * criteria.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return An {@link xyz.joestr.dbwrapper.EntityIterator} of
+     * {@link java.lang.reflect.Type}
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     * @see #iterate()
+     */
+    public EntityIterator<T> iterate(DatabaseCriteria criteria) throws SQLException {
+
+        DatabaseCriteria.Compiled compiled = this.compile(criteria, true);
+
+        return this.openIterator(this.selectSql + compiled.sql, compiled.parameters);
+    }
+
+    /**
+     * Streams all entries in the table. The stream must be closed, preferably
+     * with a try-with-resources statement, to give the connection back.
+     *
+     * @return A {@link java.util.stream.Stream} of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #iterate()
+     */
+    public Stream<T> stream() throws SQLException {
+
+        return this.iterate().stream();
+    }
+
+    /**
+     * Streams all entries in the table witch match a given condition. The
+     * stream must be closed, preferably with a try-with-resources statement,
+     * to give the connection back. This method does not prevent SQL
+     * injections!
+     *
+     * @param condition The condition as a {@link java.lang.String}
+     * @return A {@link java.util.stream.Stream} of {@link java.lang.reflect.Type}
+     * @throws NullPointerException If condition is null
+     * @throws SQLException If something SQL relevant fails
+     * @see #iterate()
+     */
+    public Stream<T> stream(String condition) throws NullPointerException, SQLException {
+
+        return this.iterate(condition).stream();
+    }
+
+    /**
+     * Streams all entries in the table witch match the given criteria. The
+     * stream must be closed, preferably with a try-with-resources statement,
+     * to give the connection back.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return A {@link java.util.stream.Stream} of {@link java.lang.reflect.Type}
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     * @see #iterate()
+     */
+    public Stream<T> stream(DatabaseCriteria criteria) throws SQLException {
+
+        return this.iterate(criteria).stream();
+    }
+
+    /**
+     * Counts all entries in the table.
+     *
+     * @return A {@code long}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public long count() throws SQLException {
+
+        return this.count(new DatabaseCriteria());
+    }
+
+    /**
+     * Counts the entries witch match the given criteria on the database,
+     * without reading them.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return A {@code long}
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public long count(DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.count(criteria);
+    }
+
+    /**
+     * Checks if an entry matches the given criteria. The database stops at
+     * the first matching row.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return {@code true} if an entry matches. Else {@code false}.
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public boolean exists(DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.exists(criteria);
+    }
+
+    /**
+     * Returns the smallest value of a field over all entries in the table.
+     *
+     * @param <V> The type of the field, primitive types boxed
+     * @param fieldName The name of the field
+     * @return The value or {@code null} if the table is empty
+     * @throws SQLException If something SQL relevant fails
+     * @see #min(java.lang.String, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public <V> V min(String fieldName) throws SQLException {
+
+        return this.min(fieldName, new DatabaseCriteria());
+    }
+
+    /**
+     * Returns the smallest value of a field over the entries witch match the
+     * given criteria, computed on the database.
+     *
+     * @param <V> The type of the field, primitive types boxed
+     * @param fieldName The name of the field
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return The value or {@code null} if no entry matches
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public <V> V min(String fieldName, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.aggregateField("MIN", fieldName, criteria);
+    }
+
+    /**
+     * Returns the largest value of a field over all entries in the table.
+     *
+     * @param <V> The type of the field, primitive types boxed
+     * @param fieldName The name of the field
+     * @return The value or {@code null} if the table is empty
+     * @throws SQLException If something SQL relevant fails
+     * @see #max(java.lang.String, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public <V> V max(String fieldName) throws SQLException {
+
+        return this.max(fieldName, new DatabaseCriteria());
+    }
+
+    /**
+     * Returns the largest value of a field over the entries witch match the
+     * given criteria, computed on the database.
+     *
+     * @param <V> The type of the field, primitive types boxed
+     * @param fieldName The name of the field
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return The value or {@code null} if no entry matches
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public <V> V max(String fieldName, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.aggregateField("MAX", fieldName, criteria);
+    }
+
+    /**
+     * Returns the sum of a numeric field over all entries in the table.
+     *
+     * @param fieldName The name of the field
+     * @return A {@link java.math.BigDecimal}
+     * @throws SQLException If something SQL relevant fails
+     * @see #sum(java.lang.String, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public BigDecimal sum(String fieldName) throws SQLException {
+
+        return this.sum(fieldName, new DatabaseCriteria());
+    }
+
+    /**
+     * Returns the sum of a numeric field over the entries witch match the
+     * given criteria, computed on the database. The sum is exact, so it does
+     * not overflow the type of the field.
+     *
+     * @param fieldName The name of the field
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return A {@link java.math.BigDecimal}; zero if no entry matches
+     * @throws IllegalArgumentException If a field is not mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public BigDecimal sum(String fieldName, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityProjector.sum(fieldName, criteria);
+    }
+
+    /**
+     * Selects the entries which follow a key in primary key order.
+     *
+     * @param afterKey The primary key values of the last entry of the
+     * previous page, usually
+     * {@link xyz.joestr.dbwrapper.DatabasePage#getContinuationKey()}, or
+     * {@code null} for the first page
+     * @param size The maximum number of entries of the page
+     * @return The {@link xyz.joestr.dbwrapper.DatabasePage}
+     * @throws SQLException If something SQL relevant fails
+     * @see #page(xyz.joestr.dbwrapper.DatabaseCriteria, java.util.List, int)
+     */
+    public DatabasePage<T> page(List<?> afterKey, int size) throws SQLException {
+
+        return this.page(new DatabaseCriteria(), afterKey, size);
+    }
+
+    /**
+     * Selects the entries witch match the given criteria and follow a key in
+     * primary key order. Instead of skipping an offset, the query seeks the
+     * key in the primary key index, so every page costs the same no matter
+     * how deep it is.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @param afterKey The primary key values of the last entry of the
+     * previous page, usually
+     * {@link xyz.joestr.dbwrapper.DatabasePage#getContinuationKey()}, or
+     * {@code null} for the first page
+     * @param size The maximum number of entries of the page
+     * @return The {@link xyz.joestr.dbwrapper.DatabasePage}
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws IllegalArgumentException If {@code size} is less than 1, the
+     * number of key values does not match the primary key or a field is not
+     * mapped
+     * @throws SQLException If something SQL relevant fails
+     */
+    public DatabasePage<T> page(DatabaseCriteria criteria, List<?> afterKey, int size) throws SQLException {
+
+        return this.entityScanner.page(criteria, afterKey, size);
+    }
+
+    /**
+     * Streams all entries in the table page by page.
+     *
+     * @param size The maximum number of entries per page
+     * @return A {@link java.util.stream.Stream} of
+     * {@link xyz.joestr.dbwrapper.DatabasePage}
+     * @see #pages(xyz.joestr.dbwrapper.DatabaseCriteria, int)
+     */
+    public Stream<DatabasePage<T>> pages(int size) {
+
+        return this.pages(new DatabaseCriteria(), size);
+    }
+
+    /**
+     * Streams all entries witch match the given criteria page by page in
+     * primary key order. A page is read when the stream reaches it and no
+     * connection is held between the pages, so the stream does not have to
+     * be closed.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @param size The maximum number of entries per page
+     * @return A {@link java.util.stream.Stream} of
+     * {@link xyz.joestr.dbwrapper.DatabasePage}; a failed read surfaces as
+     * {@link xyz.joestr.dbwrapper.UncheckedSQLException}
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws IllegalArgumentException If {@code size} is less than 1
+     */
+    public Stream<DatabasePage<T>> pages(DatabaseCriteria criteria, int size) {
+
+        return this.entityScanner.pages(criteria, size);
+    }
+
+    /**
+     * Selects all entries in the table by splitting it into key ranges which
+     * are read and hydrated in parallel.
+     *
+     * @param partitions The number of partitions
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #selectParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public Collection<T> selectParallel(int partitions) throws SQLException {
+
+        return this.selectParallel(partitions, DatabasePartitioning.RANGE);
+    }
+
+    /**
+     * Selects all entries in the table by splitting it into partitions which
+     * are read and hydrated in parallel.
+     *
+     * @param partitions The number of partitions
+     * @param partitioning The {@link xyz.joestr.dbwrapper.DatabasePartitioning}
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #selectParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public Collection<T> selectParallel(int partitions, DatabasePartitioning partitioning) throws SQLException {
+
+        return this.selectParallel(partitions, partitioning, new DatabaseCriteria());
+    }
+
+    /**
+     * Selects all entries in the table witch match the given criteria by
+     * splitting them into partitions which are read and hydrated in parallel.
+     * Every partition is a query of its own, run by the asynchronous executor
+     * of the {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler} on its
+     * own connection, so at most
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#getMaximumAsyncConcurrency()}
+     * partitions are read at the same time. The partitions are merged in key
+     * order for {@link xyz.joestr.dbwrapper.DatabasePartitioning#RANGE}.
+     * <p>
+     * The partitions do not share a snapshot, so rows written during the
+     * scan may be missed. In a transaction, the partitions are read one after
+     * another on its connection instead.
+     *
+     * @param partitions The number of partitions
+     * @param partitioning The {@link xyz.joestr.dbwrapper.DatabasePartitioning}
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return A {@link java.util.Collection} of {@link java.lang.reflect.Type}
+     * @throws IllegalArgumentException If {@code partitions} is less than 1 or
+     * a field is not mapped
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * of an integral type
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Collection<T> selectParallel(int partitions, DatabasePartitioning partitioning, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityScanner.selectParallel(partitions, partitioning, criteria);
+    }
+
+    /**
+     * Streams all entries in the table by splitting it into key ranges which
+     * are read and hydrated in parallel.
+     *
+     * @param partitions The number of partitions
+     * @return A parallel {@link java.util.stream.Stream} of
+     * {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #streamParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public Stream<T> streamParallel(int partitions) throws SQLException {
+
+        return this.streamParallel(partitions, DatabasePartitioning.RANGE);
+    }
+
+    /**
+     * Streams all entries in the table by splitting it into partitions which
+     * are read and hydrated in parallel.
+     *
+     * @param partitions The number of partitions
+     * @param partitioning The {@link xyz.joestr.dbwrapper.DatabasePartitioning}
+     * @return A parallel {@link java.util.stream.Stream} of
+     * {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     * @see #streamParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public Stream<T> streamParallel(int partitions, DatabasePartitioning partitioning) throws SQLException {
+
+        return this.streamParallel(partitions, partitioning, new DatabaseCriteria());
+    }
+
+    /**
+     * Streams all entries in the table witch match the given criteria as a
+     * parallel {@link java.util.stream.Stream}. The partitions are read as
+     * described by
+     * {@link #selectParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)};
+     * the reading starts right away and the stream processes each partition
+     * as soon as it is hydrated. No connection is held by the stream, so it
+     * does not have to be closed.
+     *
+     * @param partitions The number of partitions
+     * @param partitioning The {@link xyz.joestr.dbwrapper.DatabasePartitioning}
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}; an
+     * order or limit is ignored
+     * @return A parallel {@link java.util.stream.Stream} of
+     * {@link java.lang.reflect.Type}; a failed partition surfaces as
+     * {@link xyz.joestr.dbwrapper.UncheckedSQLException}
+     * @throws IllegalArgumentException If {@code partitions} is less than 1 or
+     * a field is not mapped
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * of an integral type
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Stream<T> streamParallel(int partitions, DatabasePartitioning partitioning, DatabaseCriteria criteria) throws SQLException {
+
+        return this.entityScanner.streamParallel(partitions, partitioning, criteria);
+    }
+
+    /**
+     * Inserts given object in the table.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer}
+     * @throws SQLException If something SQL relevant fails
+     * @throws NoSuchFieldException If the field does not exist
+     * @throws IllegalAccessException If the access is prohibited
+     */
+    public int insert(T object) throws SQLException, NoSuchFieldException, IllegalAccessException {
+
+        EntityCache.Write write = this.entityTracker.beginWrite(Collections.singletonList(object));
+
+        try {
+            int updateCount = this.write(DatabaseOperation.INSERT, this.insertSql, () -> this.metadata.bindValuesOf(object, null), preparedStatement -> {
+
+                this.entityMapper.bind(preparedStatement, object, 0);
+
+                return preparedStatement.executeUpdate();
+            });
+
+            this.entityTracker.remember(object, write);
+
+            return updateCount;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Updates the entry with the primary key of {@code object}.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer}
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails
+     */
+    public int update(T object) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        EntityCache.Write write = this.entityTracker.beginWrite(Collections.singletonList(object));
+
+        try {
+            int updateCount = this.write(DatabaseOperation.UPDATE, this.updateSql, () -> this.metadata.bindValuesOf(object, object), preparedStatement -> {
+
+                this.entityMapper.bind(preparedStatement, object, 0);
+                this.metadata.bindKey(preparedStatement, object, this.columnNames.size());
+
+                return preparedStatement.executeUpdate();
+            });
+
+            // An update which matched no entry must not cache a row
+            if (updateCount > 0) {
+                this.entityTracker.remember(object, write);
+            }
+
+            return updateCount;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Updates only the columns of {@code object} which changed since it was
+     * selected, inserted or saved while {@link #isDirtyTracking()} was set.
+     * If nothing changed, the database is not contacted at all. Objects
+     * without a snapshot are updated completely.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer}; {@code 0} if nothing changed
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails
+     */
+    public int save(T object) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        Object[] snapshot = this.entityTracker.snapshotOf(object);
+
+        if (snapshot == null) {
+            return this.update(object);
+        }
+
+        Object[] values = this.metadata.valuesOf(object);
+        BitSet changedColumns = new BitSet(values.length);
+
+        for (int i = 0; i < values.length; i++) {
+
+            if (!Objects.deepEquals(snapshot[i], values[i])) {
+                changedColumns.set(i);
+            }
+        }
+
+        if (changedColumns.isEmpty()) {
+            return 0;
+        }
+
+        String sql = this.partialUpdateSql.computeIfAbsent(changedColumns, this::buildPartialUpdateSql);
+
+        Supplier<List<Object>> parameters = () -> {
+
+            List<Object> parameters_ = new ArrayList<>();
+
+            changedColumns.stream().forEach(i -> parameters_.add(values[i]));
+
+            for (int keyIndex : this.keyIndices) {
+                parameters_.add(snapshot[keyIndex]);
+            }
+
+            return parameters_;
+        };
+
+        // The row is still stored under the key of the snapshot
+        EntityCache.Write write = this.entityTracker.beginWriteOfKeys(Arrays.asList(this.metadata.keyOf(snapshot), this.metadata.keyOf(values)));
+
+        try {
+            int updateCount = this.write(DatabaseOperation.UPDATE, sql, parameters, preparedStatement -> {
+
+                int parameterIndex = 1;
+
+                for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+                    preparedStatement.setObject(parameterIndex++, values[i]);
+                }
+
+                for (int keyIndex : this.keyIndices) {
+                    preparedStatement.setObject(parameterIndex++, snapshot[keyIndex]);
+                }
+
+                return preparedStatement.executeUpdate();
+            });
+
+            if (updateCount > 0) {
+                this.entityTracker.remember(object, values, write);
+            }
+
+            return updateCount;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Updates an {@code oldObject} with an {@code newObject}. If the wrapped
+     * class has a primary key, the entry is matched by the key of
+     * {@code oldObject}, else by all of its columns.
+     *
+     * @param oldObject Old object of {@link java.lang.reflect.Type}
+     * @param newObject New object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer}
+     * @throws SQLException If something SQL relevant fails
+     * @throws NoSuchFieldException If the field does not exist
+     * @throws IllegalAccessException If the access is prohibited
+     */
+    public int update(T oldObject, T newObject) throws SQLException, NoSuchFieldException, IllegalAccessException {
+
+        this.entityTracker.forget(oldObject);
+
+        EntityCache.Write write = this.entityTracker.beginWrite(Arrays.asList(oldObject, newObject));
+
+        try {
+            int updateCount = this.write(DatabaseOperation.UPDATE, this.updateSql, () -> this.metadata.bindValuesOf(newObject, oldObject), preparedStatement -> {
+
+                this.entityMapper.bind(preparedStatement, newObject, 0);
+                this.metadata.bindKey(preparedStatement, oldObject, this.columnNames.size());
+
+                return preparedStatement.executeUpdate();
+            });
+
+            if (updateCount > 0) {
+                this.entityTracker.remember(newObject, write);
+            }
+
+            return updateCount;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Deletes an {@code object} from the table. If the wrapped class has a
+     * primary key, the entry is matched by the key, else by all columns.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer}
+     * @throws SQLException If something SQL relevant fails
+     * @throws NoSuchFieldException If the field does not exist
+     * @throws IllegalAccessException If the access is prohibited
+     */
+    public int delete(T object) throws SQLException, NoSuchFieldException, IllegalAccessException {
+
+        EntityCache.Write write = this.entityTracker.beginWrite(Collections.singletonList(object));
+
+        try {
+            return this.write(DatabaseOperation.DELETE, this.deleteSql, () -> this.metadata.keyOf(object), preparedStatement -> {
+
+                this.metadata.bindKey(preparedStatement, object, 0);
+
+                return preparedStatement.executeUpdate();
+            });
+        } finally {
+            this.entityTracker.forget(object);
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Inserts all given objects in batches of {@link #getBatchSize()}. Every
+     * batch runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The update count of every object
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] insertAll(Collection<T> objects) throws SQLException {
+
+        return this.insertAll(objects, this.batchSize);
+    }
+
+    /**
+     * Inserts all given objects in batches of {@code batchSize}. Every batch
+     * runs in its own transaction. If {@link #isMultiRowInsert()} is set and
+     * the {@link xyz.joestr.dbwrapper.DatabaseDialect} supports it, every
+     * batch is sent as one multi-row {@code INSERT}, which only reports
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} per row if not every row was
+     * inserted.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @param batchSize The number of objects per batch
+     * @return The update count of every object
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] insertAll(Collection<T> objects, int batchSize) throws SQLException {
+
+        List<T> rows = new ArrayList<>(objects);
+        EntityCache.Write write = this.entityTracker.beginWrite(rows);
+
+        try {
+            int[] result;
+
+            if (this.multiRowInsert && this.databaseConnectionHandler.getDialect().supportsMultiRowInsert()) {
+
+                result = this.batchExecutor.executeMultiRowInsert(rows, batchSize);
+            } else {
+
+                result = this.batchExecutor.executeBatch(DatabaseOperation.INSERT, this.insertSql, rows.size(), batchSize, (preparedStatement, index) -> {
+
+                    this.entityMapper.bind(preparedStatement, rows.get(index), 0);
+                });
+            }
+
+            // SUCCESS_NO_INFO still means the row was inserted
+            for (int i = 0; i < result.length; i++) {
+
+                if (result[i] != 0) {
+                    this.entityTracker.remember(rows.get(i), write);
+                }
+            }
+
+            return result;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Updates the entries with the primary keys of all given objects in
+     * batches of {@link #getBatchSize()}. Every batch runs in its own
+     * transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The update count of every object
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] updateAll(Collection<T> objects) throws SQLException {
+
+        return this.updateAll(objects, this.batchSize);
+    }
+
+    /**
+     * Updates the entries with the primary keys of all given objects in
+     * batches of {@code batchSize}. Every batch runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @param batchSize The number of objects per batch
+     * @return The update count of every object
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] updateAll(Collection<T> objects, int batchSize) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        List<T> rows = new ArrayList<>(objects);
+        EntityCache.Write write = this.entityTracker.beginWrite(rows);
+
+        try {
+            int[] result = this.batchExecutor.executeBatch(DatabaseOperation.UPDATE, this.updateSql, rows.size(), batchSize, (preparedStatement, index) -> {
+
+                this.entityMapper.bind(preparedStatement, rows.get(index), 0);
+                this.metadata.bindKey(preparedStatement, rows.get(index), this.columnNames.size());
+            });
+
+            // SUCCESS_NO_INFO does not tell whether the update matched an entry
+            for (int i = 0; i < result.length; i++) {
+
+                if (result[i] > 0) {
+                    this.entityTracker.remember(rows.get(i), write);
+                }
+            }
+
+            return result;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Updates every object of {@code oldObjects} with the object at the same
+     * position in {@code newObjects} in batches of {@link #getBatchSize()}.
+     * Every batch runs in its own transaction.
+     *
+     * @param oldObjects Old objects of {@link java.lang.reflect.Type}
+     * @param newObjects New objects of {@link java.lang.reflect.Type}
+     * @return The update count of every pair
+     * @throws IllegalArgumentException If the lists differ in size
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] updateAll(List<T> oldObjects, List<T> newObjects) throws SQLException {
+
+        return this.updateAll(oldObjects, newObjects, this.batchSize);
+    }
+
+    /**
+     * Updates every object of {@code oldObjects} with the object at the same
+     * position in {@code newObjects} in batches of {@code batchSize}. Every
+     * batch runs in its own transaction.
+     *
+     * @param oldObjects Old objects of {@link java.lang.reflect.Type}
+     * @param newObjects New objects of {@link java.lang.reflect.Type}
+     * @param batchSize The number of pairs per batch
+     * @return The update count of every pair
+     * @throws IllegalArgumentException If the lists differ in size
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] updateAll(List<T> oldObjects, List<T> newObjects, int batchSize) throws SQLException {
+
+        if (oldObjects.size() != newObjects.size()) {
+            throw new IllegalArgumentException("oldObjects and newObjects must have the same size!");
+        }
+
+        oldObjects.forEach(this.entityTracker::forget);
+
+        List<T> rows = new ArrayList<>(oldObjects);
+
+        rows.addAll(newObjects);
+
+        EntityCache.Write write = this.entityTracker.beginWrite(rows);
+
+        try {
+            int[] result = this.batchExecutor.executeBatch(DatabaseOperation.UPDATE, this.updateSql, oldObjects.size(), batchSize, (preparedStatement, index) -> {
+
+                this.entityMapper.bind(preparedStatement, newObjects.get(index), 0);
+                this.metadata.bindKey(preparedStatement, oldObjects.get(index), this.columnNames.size());
+            });
+
+            for (int i = 0; i < result.length; i++) {
+
+                if (result[i] > 0) {
+                    this.entityTracker.remember(newObjects.get(i), write);
+                }
+            }
+
+            return result;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Deletes all given objects in batches of {@link #getBatchSize()}. Every
+     * batch runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The update count of every object
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] deleteAll(Collection<T> objects) throws SQLException {
+
+        return this.deleteAll(objects, this.batchSize);
+    }
+
+    /**
+     * Deletes all given objects in batches of {@code batchSize}. Every batch
+     * runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @param batchSize The number of objects per batch
+     * @return The update count of every object
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     */
+    public int[] deleteAll(Collection<T> objects, int batchSize) throws SQLException {
+
+        List<T> rows = new ArrayList<>(objects);
+        EntityCache.Write write = this.entityTracker.beginWrite(rows);
+
+        try {
+            return this.batchExecutor.executeBatch(DatabaseOperation.DELETE, this.deleteSql, rows.size(), batchSize, (preparedStatement, index) -> {
+
+                this.metadata.bindKey(preparedStatement, rows.get(index), 0);
+            });
+        } finally {
+            rows.forEach(this.entityTracker::forget);
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Inserts an object or, if an entry with its primary key exists, updates
+     * the entry. Where the {@link xyz.joestr.dbwrapper.DatabaseDialect} has an
+     * upsert statement, like {@code INSERT ... ON DUPLICATE KEY UPDATE} of
+     * MariaDB, it takes one atomic round trip. Else the update and, if it
+     * matched no entry, the insert run in one transaction; a concurrent insert
+     * of the same key can then fail with a duplicate key.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return An {@link java.lang.Integer} as reported by the database
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails
+     */
+    public int upsert(T object) throws SQLException {
+
+        return this.upsertAll(Collections.singletonList(object), 1)[0];
+    }
+
+    /**
+     * Upserts all given objects in batches of {@link #getBatchSize()}. Every
+     * batch runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The update count of every object
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     * @see #upsert(java.lang.Object)
+     */
+    public int[] upsertAll(Collection<T> objects) throws SQLException {
+
+        return this.upsertAll(objects, this.batchSize);
+    }
+
+    /**
+     * Upserts all given objects in batches of {@code batchSize}. Every batch
+     * runs in its own transaction.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @param batchSize The number of objects per batch
+     * @return The update count of every object
+     * @throws IllegalStateException If the wrapped class has no primary key
+     * @throws SQLException If something SQL relevant fails; batches before the
+     * failing one stay committed
+     * @see #upsert(java.lang.Object)
+     */
+    public int[] upsertAll(Collection<T> objects, int batchSize) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        List<T> rows = new ArrayList<>(objects);
+        DatabaseDialect dialect = this.databaseConnectionHandler.getDialect();
+        Optional<String> sql = this.upsertSql.computeIfAbsent(
+            dialect, key -> Optional.ofNullable(key.upsertSql(this.tableName, this.columnNames, this.keyColumnNames))
+        );
+
+        EntityCache.Write write = this.entityTracker.beginWrite(rows);
+
+        try {
+            int[] result;
+
+            if (sql.isPresent()) {
+
+                result = this.batchExecutor.executeBatch(DatabaseOperation.UPSERT, sql.get(), rows.size(), batchSize, (preparedStatement, index) -> {
+
+                    this.entityMapper.bind(preparedStatement, rows.get(index), 0);
+                });
+            } else {
+
+                result = this.batchExecutor.upsert(rows, batchSize);
+            }
+
+            // Every row exists after an upsert, even if it was not changed
+            rows.forEach(row -> this.entityTracker.remember(row, write));
+
+            return result;
+        } finally {
+            this.entityTracker.endWrite(write);
+        }
+    }
+
+    /**
+     * Selects all entries in the table asynchronously.
+     *
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #select()
+     */
+    public CompletableFuture<Collection<T>> selectAsync() {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.select());
+    }
+
+    /**
+     * Selects all entries in the table witch match a given condition asynchronously.
+     *
+     * @param condition The condition as a {@link java.lang.String}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #select(java.lang.String)
+     */
+    public CompletableFuture<Collection<T>> selectAsync(String condition) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.select(condition));
+    }
+
+    /**
+     * Selects all entries in the table witch match the given criteria asynchronously.
+     *
+     * @param criteria The {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #select(xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    public CompletableFuture<Collection<T>> selectAsync(DatabaseCriteria criteria) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.select(criteria));
+    }
+
+    /**
+     * Selects the entry with the given primary key asynchronously.
+     *
+     * @param keyValues The values of the primary key columns
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #findById(java.lang.Object...)
+     */
+    public CompletableFuture<T> findByIdAsync(Object... keyValues) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.findById(keyValues));
+    }
+
+    /**
+     * Inserts given object in the table asynchronously.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #insert(java.lang.Object)
+     */
+    public CompletableFuture<Integer> insertAsync(T object) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.insert(object));
+    }
+
+    /**
+     * Updates the entry with the primary key of {@code object} asynchronously.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #update(java.lang.Object)
+     */
+    public CompletableFuture<Integer> updateAsync(T object) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.update(object));
+    }
+
+    /**
+     * Updates an {@code oldObject} with an {@code newObject} asynchronously.
+     *
+     * @param oldObject Old object of {@link java.lang.reflect.Type}
+     * @param newObject New object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #update(java.lang.Object, java.lang.Object)
+     */
+    public CompletableFuture<Integer> updateAsync(T oldObject, T newObject) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.update(oldObject, newObject));
+    }
+
+    /**
+     * Updates only the changed columns of {@code object} asynchronously.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #save(java.lang.Object)
+     */
+    public CompletableFuture<Integer> saveAsync(T object) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.save(object));
+    }
+
+    /**
+     * Deletes an {@code object} from the table asynchronously.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #delete(java.lang.Object)
+     */
+    public CompletableFuture<Integer> deleteAsync(T object) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.delete(object));
+    }
+
+    /**
+     * Upserts given object asynchronously.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #upsert(java.lang.Object)
+     */
+    public CompletableFuture<Integer> upsertAsync(T object) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.upsert(object));
+    }
+
+    /**
+     * Upserts all given objects in batches asynchronously.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #upsertAll(java.util.Collection)
+     */
+    public CompletableFuture<int[]> upsertAllAsync(Collection<T> objects) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.upsertAll(objects));
+    }
+
+    /**
+     * Inserts all given objects in batches asynchronously.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #insertAll(java.util.Collection)
+     */
+    public CompletableFuture<int[]> insertAllAsync(Collection<T> objects) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.insertAll(objects));
+    }
+
+    /**
+     * Updates the entries with the primary keys of all given objects in batches asynchronously.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #updateAll(java.util.Collection)
+     */
+    public CompletableFuture<int[]> updateAllAsync(Collection<T> objects) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.updateAll(objects));
+    }
+
+    /**
+     * Deletes all given objects in batches asynchronously.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return A {@link java.util.concurrent.CompletableFuture} of the result
+     * @see #deleteAll(java.util.Collection)
+     */
+    public CompletableFuture<int[]> deleteAllAsync(Collection<T> objects) {
+
+        return this.databaseConnectionHandler.executeAsync(() -> this.deleteAll(objects));
+    }
+
+    /**
+     * Returns the number of objects per batch of the bulk operations.
+     *
+     * @return An {@code int}
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Sets the number of objects per batch of the bulk operations.
+     *
+     * @param batchSize The number of objects per batch
+     * @throws IllegalArgumentException If {@code batchSize} is less than 1
+     */
+    public void setBatchSize(int batchSize) {
+
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1!");
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the number of rows fetched per round trip by
+     * {@link #iterate()} and {@link #stream()}.
+     *
+     * @return An {@code int}
+     */
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched per round trip by {@link #iterate()}
+     * and {@link #stream()}.
+     *
+     * @param fetchSize The number of rows per round trip
+     * @throws IllegalArgumentException If {@code fetchSize} is less than 1
+     */
+    public void setFetchSize(int fetchSize) {
+
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1!");
+        }
+
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns {@code true} if selected, inserted and updated objects keep a
+     * snapshot of their values for {@link #save(java.lang.Object)}. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isDirtyTracking() {
+        return this.entityTracker.isDirtyTracking();
+    }
+
+    /**
+     * Set the flag, if selected, inserted and updated objects keep a snapshot
+     * of their values for {@link #save(java.lang.Object)}. Disabling drops all
+     * snapshots.
+     *
+     * @param dirtyTracking If snapshots should be kept
+     */
+    public void setDirtyTracking(boolean dirtyTracking) {
+
+        this.entityTracker.setDirtyTracking(dirtyTracking);
+    }
+
+    /**
+     * Returns the {@code entityCache}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.EntityCache} or {@code null}
+     */
+    public EntityCache getEntityCache() {
+        return this.entityTracker.getEntityCache();
+    }
+
+    /**
+     * Sets the cache for {@link #findById(java.lang.Object...)}. Selected
+     * objects are put into the cache and the write operations of this
+     * wrapper keep it up to date. In a transaction the cache is neither read
+     * nor filled, and the rows written reach it only after the commit.
+     *
+     * @param entityCache The {@link xyz.joestr.dbwrapper.EntityCache} or
+     * {@code null} to disable caching
+     * @throws IllegalStateException If the wrapped class has no primary key
+     */
+    public void setEntityCache(EntityCache entityCache) {
+
+        if (entityCache != null) {
+            this.metadata.requirePrimaryKey();
+        }
+
+        this.entityTracker.setEntityCache(entityCache);
+    }
+
+    /**
+     * Returns {@code true} if {@link #insertAll(java.util.Collection)} sends
+     * multi-row {@code INSERT}s where the dialect supports them. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isMultiRowInsert() {
+        return this.multiRowInsert;
+    }
+
+    /**
+     * Set the flag, if {@link #insertAll(java.util.Collection)} sends
+     * multi-row {@code INSERT}s where the dialect supports them.
+     *
+     * @param multiRowInsert If multi-row {@code INSERT}s should be sent
+     */
+    public void setMultiRowInsert(boolean multiRowInsert) {
+        this.multiRowInsert = multiRowInsert;
+    }
+
+    /**
+     * Returns the {@code databaseConnectionHandler}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     */
+    public DatabaseConnectionHandler getDatabaseConnectionHandler() {
+        return this.databaseConnectionHandler;
+    }
+
+    /**
+     * Returns the wrapped class.
+     *
+     * @return The {@link java.lang.Class}
+     */
+    public Class<T> getWrappedClass() {
+        return this.clazz;
+    }
+
+    /**
+     * Returns the name of the table.
+     *
+     * @return A {@link java.lang.String}
+     */
+    public String getTableName() {
+        return this.tableName;
+    }
+
+    /**
+     * Returns the names of the columns.
+     *
+     * @return An unmodifiable {@link java.util.List}
+     */
+    public List<String> getColumnNames() {
+        return this.columnNames;
+    }
+
+    /**
+     * Returns the names of the fields in column order.
+     *
+     * @return An unmodifiable {@link java.util.List}
+     */
+    public List<String> getFieldNames() {
+        return this.fieldNames;
+    }
+
+    /**
+     * Returns the names of the primary key columns.
+     *
+     * @return An unmodifiable {@link java.util.List}, empty if the wrapped
+     * class has no primary key
+     */
+    public List<String> getKeyColumnNames() {
+        return this.keyColumnNames;
+    }
+
+    /**
+     * Returns {@code true} if the wrapped class has a primary key. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean hasPrimaryKey() {
+        return !this.keyColumnNames.isEmpty();
+    }
+
+    /**
+     * Returns the column name of a mapped field.
+     *
+     * @param fieldName The name of the field
+     * @return The name of the column
+     * @throws IllegalArgumentException If the field is not mapped
+     */
+    public String getColumnName(String fieldName) {
+
+        return this.columnNames.get(this.getFieldIndex(fieldName));
+    }
+
+    /**
+     * Returns the index of a mapped field in column order.
+     *
+     * @param fieldName The name of the field
+     * @return An {@code int}
+     * @throws IllegalArgumentException If the field is not mapped
+     */
+    public int getFieldIndex(String fieldName) {
+
+        Integer index = this.fieldIndices.get(fieldName);
+
+        if (index == null) {
+            throw new IllegalArgumentException(
+                "Field " + fieldName + " is not mapped by " + this.clazz.getName() + "!"
+            );
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the {@code entityMapper}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.EntityMapper}
+     */
+    public EntityMapper<T> getEntityMapper() {
+        return this.entityMapper;
+    }
+
+    /**
+     * Returns the primary key values of an object, or all values without a
+     * primary key, as a list which can be used as map key.
+     */
+    List<Object> keyOf(T object) {
+
+        return this.metadata.keyOf(object);
+    }
+
+    /**
+     * Compiles criteria against the mapped fields.
+     */
+    DatabaseCriteria.Compiled compile(DatabaseCriteria criteria, boolean withOrderAndLimit) {
+
+        if (criteria == null) {
+            throw new NullPointerException("criteria can not be null!");
+        }
+
+        return criteria.compile(this::getColumnName, this.databaseConnectionHandler.getDialect(), withOrderAndLimit);
+    }
+
+    private String buildPartialUpdateSql(BitSet changedColumns) {
+
+        return "UPDATE " + this.tableName + " SET "
+            + changedColumns.stream().mapToObj(this.columnNames::get).collect(Collectors.joining("=?, ", "", "=?"))
+            + this.keyMatchSql;
+    }
+
+    /**
+     * Runs a query and hydrates every row.
+     */
+    private Collection<T> query(String sql) throws SQLException {
+
+        return this.query(sql, Collections.emptyList());
+    }
+
+    /**
+     * Runs a query with parameters and hydrates every row. The
+     * {@link xyz.joestr.dbwrapper.QueryResultCache} of the handler is asked
+     * first, except in a transaction, which may see uncommitted rows. Unless
+     * the cache shares its results, only the copies handed out are
+     * remembered.
+     */
+    Collection<T> query(String sql, List<?> parameters) throws SQLException {
+
+        long version = this.entityTracker.readVersion();
+        QueryResultCache cache = this.databaseConnectionHandler.getQueryResultCache();
+
+        if (cache == null || this.databaseConnectionHandler.getTransaction() != null) {
+            return this.load(sql, parameters);
+        }
+
+        List<Object> key = Arrays.asList(this.clazz, sql, new ArrayList<>(parameters));
+
+        @SuppressWarnings("unchecked")
+        List<T> cached = (List<T>) cache.get(key, this.tableName);
+
+        if (cached == null) {
+
+            long generation = cache.generation(this.tableName);
+
+            cached = Collections.unmodifiableList(
+                cache.isSharedResults()
+                    ? this.load(sql, parameters)
+                    : this.statementObserver.read(sql, parameters, this.entityMapper, null)
+            );
+
+            cache.put(key, this.tableName, generation, cached);
+        }
+
+        if (cache.isSharedResults()) {
+            return cached;
+        }
+
+        List<T> result = new ArrayList<>(cached.size());
+
+        for (T object : cached) {
+
+            T copy = this.entityMapper.newInstance();
+
+            for (int i = 0; i < this.columnNames.size(); i++) {
+                this.entityMapper.set(copy, i, EntityMetadata.copyOf(this.entityMapper.get(object, i)));
+            }
+
+            this.entityTracker.remember(copy, version);
+            result.add(copy);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs a query with parameters on the database and hydrates every row.
+     */
+    List<T> load(String sql, List<?> parameters) throws SQLException {
+
+        long version = this.entityTracker.readVersion();
+
+        return this.statementObserver.read(sql, parameters, this.entityMapper, object -> this.entityTracker.remember(object, version));
+    }
+
+    /**
+     * Executes a writing statement and invalidates the cached query results
+     * of the table afterwards.
+     */
+    private <R> R write(DatabaseOperation operation, String sql, Supplier<? extends List<?>> parameters, StatementCallback<R> callback) throws SQLException {
+
+        try {
+            return this.statementObserver.execute(operation, sql, parameters, callback);
+        } finally {
+            this.invalidateQueryResults();
+        }
+    }
+
+    /**
+     * Invalidates the cached query results of the table. In a transaction
+     * they are invalidated again when it ends, as other threads may have
+     * cached the old rows meanwhile.
+     */
+    private void invalidateQueryResults() {
+
+        QueryResultCache cache = this.databaseConnectionHandler.getQueryResultCache();
+
+        if (cache == null) {
+            return;
+        }
+
+        cache.invalidate(this.tableName);
+
+        DatabaseTransaction transaction = this.databaseConnectionHandler.getTransaction();
+
+        if (transaction != null) {
+            transaction.onCompletion(Arrays.asList(cache, this.tableName), () -> cache.invalidate(this.tableName));
+        }
+    }
+
+    /**
+     * Executes a query on its own forward-only statement and hands the open
+     * result over to an iterator.
+     */
+    private EntityIterator<T> openIterator(String sql, List<?> parameters) throws SQLException {
+
+        DatabaseMetricsListener listener = this.databaseConnectionHandler.getMetricsListener();
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+        boolean timed = listener != null || slowQueryLog != null;
+        long version = this.entityTracker.readVersion();
+        Connection connection = this.databaseConnectionHandler.acquireConnection();
+
+        PreparedStatement preparedStatement = null;
+
+        try {
+            preparedStatement = connection.prepareStatement(
+                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+            );
+
+            this.databaseConnectionHandler.getDialect().configureStreaming(preparedStatement, this.fetchSize);
+
+            StatementObserver.bindParameters(preparedStatement, parameters);
+
+            long start = timed ? System.nanoTime() : 0;
+            ResultSet resultSet = preparedStatement.executeQuery();
+
+            // The rows are read later, while iterating
+            if (timed) {
+                this.statementObserver.report(listener, slowQueryLog, DatabaseOperation.SELECT, sql, () -> parameters, System.nanoTime() - start, 0, 0);
+            }
+
+            return new EntityIterator<>(
+                this.databaseConnectionHandler, connection, preparedStatement, resultSet, this.entityMapper,
+                this.entityTracker.isTracking() ? object -> this.entityTracker.remember(object, version) : null
+            );
+        } catch (SQLException | RuntimeException e) {
+
+            if (listener != null) {
+                listener.operationFailed(this.tableName, DatabaseOperation.SELECT, e);
+            }
+
+            try {
+                if (preparedStatement != null) {
+                    preparedStatement.close();
+                }
+            } finally {
+                this.databaseConnectionHandler.releaseConnection(connection);
+            }
+
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands {@link xyz.joestr.dbwrapper.DatabaseTask}s to an
+ * {@link java.util.concurrent.Executor} while bounding how many of them run
+ * at once. Further tasks wait in a queue without occupying a thread.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class AsyncTaskQueue {
+
+    private final Queue<Job<?>> jobs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Supplier<Executor> executorSupplier;
+    private volatile int maximumConcurrency;
+
+    AsyncTaskQueue(Supplier<Executor> executorSupplier, int maximumConcurrency) {
+
+        this.executorSupplier = executorSupplier;
+        this.maximumConcurrency = maximumConcurrency;
+    }
+
+    /**
+     * Queues a task and starts it as soon as the bound allows.
+     */
+    <R> CompletableFuture<R> submit(DatabaseTask<R> task) {
+
+        Job<R> job = new Job<>(task);
+
+        this.jobs.add(job);
+        this.drain();
+
+        return job.future;
+    }
+
+    int getMaximumConcurrency() {
+        return this.maximumConcurrency;
+    }
+
+    void setMaximumConcurrency(int maximumConcurrency) {
+
+        this.maximumConcurrency = maximumConcurrency;
+        this.drain();
+    }
+
+    /**
+     * Returns the number of tasks which wait for a free slot.
+     */
+    int getQueuedCount() {
+        return this.jobs.size();
+    }
+
+    /**
+     * Returns the number of running tasks.
+     */
+    int getRunningCount() {
+        return this.running.get();
+    }
+
+    private void drain() {
+
+        while (!this.jobs.isEmpty() && this.tryAcquire()) {
+
+            Job<?> job = this.jobs.poll();
+
+            // Another thread took the last job
+            if (job == null) {
+                this.running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                this.executorSupplier.get().execute(() -> {
+
+                    try {
+                        job.run();
+                    } finally {
+                        this.running.decrementAndGet();
+                        this.drain();
+                    }
+                });
+            } catch (RuntimeException e) {
+
+                this.running.decrementAndGet();
+                job.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+
+        while (true) {
+
+            int current = this.running.get();
+
+            if (current >= this.maximumConcurrency) {
+                return false;
+            }
+
+            if (this.running.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * A queued task and its future.
+     */
+    private static final class Job<R> {
+
+        private final DatabaseTask<R> task;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Job(DatabaseTask<R> task) {
+            this.task = task;
+        }
+
+        private void run() {
+
+            // A cancelled future does not need its result any more
+            if (this.future.isDone()) {
+                return;
+            }
+
+            try {
+                this.future.complete(this.task.execute());
+            } catch (Throwable t) {
+                this.future.completeExceptionally(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the bulk writes of a wrapper. The rows are split into chunks and
+ * every chunk runs in its own transaction on one connection, unless the
+ * connection is already in a transaction.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class BatchExecutor<T> {
+
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final EntityMetadata<T> metadata;
+    private final StatementObserver statementObserver;
+    private final Runnable completionAction;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.BatchExecutor}.
+     *
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param metadata The {@link xyz.joestr.dbwrapper.EntityMetadata}
+     * @param statementObserver The {@link xyz.joestr.dbwrapper.StatementObserver}
+     * @param completionAction Runs after every bulk write, like the
+     * invalidation of cached query results
+     */
+    BatchExecutor(DatabaseConnectionHandler databaseConnectionHandler, EntityMetadata<T> metadata, StatementObserver statementObserver, Runnable completionAction) {
+
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.metadata = metadata;
+        this.statementObserver = statementObserver;
+        this.completionAction = completionAction;
+    }
+
+    /**
+     * Runs {@code addBatch}/{@code executeBatch} over {@code count} rows.
+     */
+    int[] executeBatch(DatabaseOperation operation, String sql, int count, int batchSize, RowBinder rowBinder) throws SQLException {
+
+        int[] result = new int[count];
+
+        this.executeInChunks(operation, sql, count, batchSize, (connection, from, to) -> {
+
+            PreparedStatement preparedStatement = this.databaseConnectionHandler.prepareStatement(connection, sql);
+
+            try {
+                for (int i = from; i < to; i++) {
+
+                    rowBinder.bind(preparedStatement, i);
+                    preparedStatement.addBatch();
+                }
+
+                int[] updateCounts = preparedStatement.executeBatch();
+
+                System.arraycopy(updateCounts, 0, result, from, Math.min(updateCounts.length, to - from));
+            } catch (SQLException | RuntimeException e) {
+                preparedStatement.clearBatch();
+                throw e;
+            } finally {
+                this.databaseConnectionHandler.releaseStatement(connection, preparedStatement);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Inserts the rows with one multi-row {@code INSERT} per chunk.
+     */
+    int[] executeMultiRowInsert(List<T> rows, int batchSize) throws SQLException {
+
+        int columns = this.metadata.columnNames.size();
+        int rowsPerStatement = Math.max(
+            1, Math.min(batchSize, this.databaseConnectionHandler.getDialect().maximumParameterCount() / columns)
+        );
+        String rowPlaceholders = this.metadata.columnNames.stream().map(columnName -> "?").collect(Collectors.joining(", ", "(", ")"));
+
+        int[] result = new int[rows.size()];
+
+        this.executeInChunks(DatabaseOperation.INSERT, this.metadata.insertSql, rows.size(), rowsPerStatement, (connection, from, to) -> {
+
+            String sql = this.metadata.insertSql.substring(0, this.metadata.insertSql.lastIndexOf("VALUES(") + 6)
+                + String.join(", ", Collections.nCopies(to - from, rowPlaceholders));
+
+            PreparedStatement preparedStatement = this.databaseConnectionHandler.prepareStatement(connection, sql);
+
+            try {
+                for (int i = from; i < to; i++) {
+
+                    this.metadata.entityMapper.bind(preparedStatement, rows.get(i), (i - from) * columns);
+                }
+
+                int updateCount = preparedStatement.executeUpdate();
+
+                Arrays.fill(result, from, to, updateCount == to - from ? 1 : Statement.SUCCESS_NO_INFO);
+            } finally {
+                this.databaseConnectionHandler.releaseStatement(connection, preparedStatement);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Upserts the rows without an upsert statement of the dialect. Every
+     * chunk updates its rows and inserts the ones the update did not find.
+     */
+    int[] upsert(List<T> rows, int batchSize) throws SQLException {
+
+        int[] result = new int[rows.size()];
+
+        // The update and the insert are reported as the statements they are
+        this.runInChunks(rows.size(), batchSize, (connection, from, to) -> {
+
+            this.upsertChunk(connection, rows, from, to, result);
+        });
+
+        return result;
+    }
+
+    /**
+     * Updates the rows of a chunk one by one and inserts the ones the update
+     * did not find. The updates are not batched, because a driver may answer
+     * a batch with {@link java.sql.Statement#SUCCESS_NO_INFO} instead of the
+     * number of matched entries.
+     */
+    private void upsertChunk(Connection connection, List<T> rows, int from, int to, int[] result) throws SQLException {
+
+        DatabaseMetricsListener listener = this.databaseConnectionHandler.getMetricsListener();
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+        List<Integer> missing = new ArrayList<>();
+
+        PreparedStatement updateStatement = this.databaseConnectionHandler.prepareStatement(connection, this.metadata.updateSql);
+
+        try {
+            for (int i = from; i < to; i++) {
+
+                T row = rows.get(i);
+
+                this.metadata.entityMapper.bind(updateStatement, row, 0);
+                this.metadata.bindKey(updateStatement, row, this.metadata.columnNames.size());
+
+                result[i] = this.statementObserver.observe(listener, DatabaseOperation.UPDATE, () -> {
+
+                    long start = System.nanoTime();
+                    int updateCount = updateStatement.executeUpdate();
+
+                    this.statementObserver.report(
+                        listener, slowQueryLog, DatabaseOperation.UPDATE, this.metadata.updateSql, () -> this.metadata.bindValuesOf(row, row),
+                        System.nanoTime() - start, 0, Math.max(0, updateCount)
+                    );
+
+                    return updateCount;
+                });
+
+                if (result[i] < 0) {
+                    throw new SQLException("The update count " + result[i] + " does not tell whether an entry of " + this.metadata.tableName + " exists!");
+                }
+
+                if (result[i] == 0) {
+                    missing.add(i);
+                }
+            }
+        } finally {
+            this.databaseConnectionHandler.releaseStatement(connection, updateStatement);
+        }
+
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        PreparedStatement insertStatement = this.databaseConnectionHandler.prepareStatement(connection, this.metadata.insertSql);
+
+        try {
+            for (int i : missing) {
+
+                this.metadata.entityMapper.bind(insertStatement, rows.get(i), 0);
+                insertStatement.addBatch();
+            }
+
+            int[] insertCounts = this.statementObserver.observe(listener, DatabaseOperation.INSERT, () -> {
+
+                long start = System.nanoTime();
+                int[] updateCounts = insertStatement.executeBatch();
+
+                // The bind values of a whole batch are not logged
+                this.statementObserver.report(listener, slowQueryLog, DatabaseOperation.INSERT, this.metadata.insertSql, null, System.nanoTime() - start, 0, missing.size());
+
+                return updateCounts;
+            });
+
+            for (int i = 0; i < missing.size(); i++) {
+                result[missing.get(i)] = insertCounts[i];
+            }
+        } catch (SQLException | RuntimeException e) {
+            insertStatement.clearBatch();
+            throw e;
+        } finally {
+            this.databaseConnectionHandler.releaseStatement(connection, insertStatement);
+        }
+    }
+
+    /**
+     * Splits {@code count} rows into chunks and runs every chunk in its own
+     * transaction on one connection. A connection which is already in a
+     * transaction is not committed. The cached query results of the table
+     * are invalidated afterwards. Every chunk is reported to the metrics
+     * listener of the handler, if any.
+     */
+    private void executeInChunks(DatabaseOperation operation, String sql, int count, int chunkSize, ChunkWork chunkWork) throws SQLException {
+
+        DatabaseMetricsListener listener = this.databaseConnectionHandler.getMetricsListener();
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+
+        if (listener == null && slowQueryLog == null) {
+            this.runInChunks(count, chunkSize, chunkWork);
+            return;
+        }
+
+        this.statementObserver.observe(listener, operation, () -> {
+
+            this.runInChunks(count, chunkSize, (connection, from, to) -> {
+
+                long start = System.nanoTime();
+
+                chunkWork.execute(connection, from, to);
+
+                // The bind values of a whole chunk are not logged
+                this.statementObserver.report(listener, slowQueryLog, operation, sql, null, System.nanoTime() - start, 0, to - from);
+            });
+
+            return null;
+        });
+    }
+
+    private void runInChunks(int count, int chunkSize, ChunkWork chunkWork) throws SQLException {
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1!");
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        Connection connection = this.databaseConnectionHandler.acquireConnection();
+
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+
+            try {
+                for (int from = 0; from < count; from += chunkSize) {
+
+                    int to = Math.min(count, from + chunkSize);
+
+                    if (!autoCommit) {
+
+                        chunkWork.execute(connection, from, to);
+                        continue;
+                    }
+
+                    connection.setAutoCommit(false);
+
+                    try {
+                        chunkWork.execute(connection, from, to);
+                        connection.commit();
+                    } catch (SQLException | RuntimeException e) {
+                        connection.rollback();
+                        throw e;
+                    }
+                }
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } finally {
+            try {
+                this.databaseConnectionHandler.releaseConnection(connection);
+            } finally {
+                this.completionAction.run();
+            }
+        }
+    }
+
+    /**
+     * Binds the row at an index to a statement.
+     */
+    @FunctionalInterface
+    interface RowBinder {
+
+        void bind(PreparedStatement preparedStatement, int index) throws SQLException;
+    }
+
+    /**
+     * Works on the rows {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    @FunctionalInterface
+    private interface ChunkWork {
+
+        void execute(Connection connection, int from, int to) throws SQLException;
+    }
+}
@@ -7,19 +7,49 @@ package xyz.joestr.dbwrapper;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import xyz.joestr.dbwrapper.special.mariadb.MariaDBDialect;
 
 /**
- * Handles the connection to a database;
+ * Handles the connection to a database; An instance can be shared by threads.
+ * Every operation works on its own connection: a pooled handler leases one
+ * from the pool, a persistent handler keeps one connection per thread and
+ * any other handler opens a new one.
  *
  * @author Joel Strasser (joestr)
  * @version ${project.version}
  */
-public class DatabaseConnectionHandler {
+public class DatabaseConnectionHandler implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseConnectionHandler.class.getName());
 
     private final String connectionString;
-    private Connection connection;
-    private boolean persistentConnection = false;
+    private final DatabaseConnectionPool connectionPool;
+    private final ConcurrentMap<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final ThreadLocal<Connection> threadConnection = new ThreadLocal<>();
+    private final ThreadLocal<DatabaseTransaction> transaction = new ThreadLocal<>();
+    private final ConcurrentMap<Connection, Thread> threadConnections = new ConcurrentHashMap<>();
+    private volatile boolean persistentConnection = false;
+    private volatile int statementCacheSize = 64;
+    private volatile DatabaseDialect dialect;
+    private volatile QueryResultCache queryResultCache;
+    private volatile DatabaseMetricsListener metricsListener;
+    private volatile DatabaseSlowQueryLog slowQueryLog;
+    private final AsyncTaskQueue asyncTaskQueue;
+    private volatile Executor asyncExecutor;
+    private ExecutorService defaultAsyncExecutor;
 
     /**
      * Create an instance of
@@ -30,30 +60,417 @@ public class DatabaseConnectionHandler {
     public DatabaseConnectionHandler(String connectionString) {
 
         this.connectionString = connectionString;
+        this.connectionPool = null;
+        this.dialect = resolveDialect(connectionString);
+        this.asyncTaskQueue = new AsyncTaskQueue(this::resolveAsyncExecutor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an instance of
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler} which borrows
+     * connections from a {@link xyz.joestr.dbwrapper.DatabaseConnectionPool}.
+     *
+     * @param connectionString The connection string
+     * @param minimumPoolSize The number of connections which are kept open
+     * @param maximumPoolSize The maximum number of leased connections
+     */
+    public DatabaseConnectionHandler(String connectionString, int minimumPoolSize, int maximumPoolSize) {
+
+        this.connectionString = connectionString;
+        this.dialect = resolveDialect(connectionString);
+        this.connectionPool = new DatabaseConnectionPool(connectionString, minimumPoolSize, maximumPoolSize);
+        this.connectionPool.setDiscardListener(this::closeStatementCache);
+        this.asyncTaskQueue = new AsyncTaskQueue(this::resolveAsyncExecutor, maximumPoolSize);
     }
 
     /**
-     * Connects to a database using the {@code connectionString}.
+     * Acquires a connection for one operation. Inside of
+     * {@link #inTransaction(xyz.joestr.dbwrapper.TransactionCallback)} the
+     * connection of the transaction is returned. If this handler is pooled the
+     * connection is borrowed from the pool, if the connection is persistent
+     * the connection of the calling thread is returned, else a new connection
+     * is opened.
+     * Every acquired connection must be given back with
+     * {@link #releaseConnection(java.sql.Connection)}.
      *
+     * @return A {@link java.sql.Connection}
      * @throws SQLException If something SQL relevant fails
      */
-    public void connect() throws SQLException {
+    public Connection acquireConnection() throws SQLException {
+
+        DatabaseMetricsListener listener = this.metricsListener;
+
+        if (listener == null) {
+            return this.acquire();
+        }
+
+        long start = System.nanoTime();
+        Connection connection = this.acquire();
+
+        listener.connectionAcquired(System.nanoTime() - start);
+
+        return connection;
+    }
+
+    private Connection acquire() throws SQLException {
+
+        DatabaseTransaction transaction_ = this.transaction.get();
+
+        if (transaction_ != null) {
+
+            return transaction_.getConnection();
+        }
+
+        if (this.connectionPool != null) {
+
+            return this.connectionPool.acquire();
+        }
 
         if (this.persistentConnection) {
 
-            if (!this.connection.isValid(0)) {
+            return this.acquirePersistentConnection();
+        }
+
+        return DriverManager.getConnection(this.connectionString);
+    }
+
+    /**
+     * Gives a connection obtained by {@link #acquireConnection()} back.
+     *
+     * @param connection The {@link java.sql.Connection}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void releaseConnection(Connection connection) throws SQLException {
+
+        DatabaseTransaction transaction_ = this.transaction.get();
 
-                this.connection = DriverManager.getConnection(this.connectionString);
+        // The transaction gives its connection back when it ends
+        if (transaction_ != null && transaction_.getConnection() == connection) {
+
+            return;
+        }
+
+        if (this.connectionPool != null) {
+
+            this.connectionPool.release(connection);
+            return;
+        }
+
+        // The connection of a thread stays open, even if another thread
+        // gives it back
+        if (this.threadConnections.containsKey(connection)) {
+
+            return;
+        }
+
+        this.closeStatementCache(connection);
+        connection.close();
+    }
+
+    /**
+     * Prepares a statement on a connection obtained by
+     * {@link #acquireConnection()}. If the connection is reused by this
+     * handler, the statement is taken from a per-connection cache. Every
+     * prepared statement must be given back with
+     * {@link #releaseStatement(java.sql.Connection, java.sql.PreparedStatement)}
+     * instead of being closed.
+     *
+     * @param connection The {@link java.sql.Connection}
+     * @param sql The SQL text
+     * @return A {@link java.sql.PreparedStatement}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+
+        DatabaseMetricsListener listener = this.metricsListener;
+
+        if (listener == null) {
+            return this.prepare(connection, sql);
+        }
+
+        long start = System.nanoTime();
+        PreparedStatement preparedStatement = this.prepare(connection, sql);
+
+        listener.statementPrepared(System.nanoTime() - start);
+
+        return preparedStatement;
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+
+        if (this.statementCacheSize <= 0 || !this.isConnectionReused()) {
+
+            return connection.prepareStatement(sql);
+        }
+
+        StatementCache statementCache = this.statementCaches.get(connection);
+
+        if (statementCache == null) {
+
+            statementCache = this.statementCaches.computeIfAbsent(
+                connection, key -> new StatementCache(this.statementCacheSize)
+            );
+        }
+
+        return statementCache.prepare(connection, sql);
+    }
+
+    /**
+     * Gives a statement obtained by
+     * {@link #prepareStatement(java.sql.Connection, java.lang.String)} back.
+     * Statements which are not cached are closed.
+     *
+     * @param connection The {@link java.sql.Connection}
+     * @param preparedStatement The {@link java.sql.PreparedStatement}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void releaseStatement(Connection connection, PreparedStatement preparedStatement) throws SQLException {
+
+        StatementCache statementCache = this.statementCaches.get(connection);
+
+        if (statementCache == null) {
+
+            preparedStatement.close();
+            return;
+        }
+
+        statementCache.release(preparedStatement);
+    }
+
+    /**
+     * Acquires a connection, prepares a statement, runs the callback and
+     * gives both back.
+     *
+     * @param <R> The result
+     * @param sql The SQL text
+     * @param callback The {@link xyz.joestr.dbwrapper.StatementCallback}
+     * @return The result of the callback
+     * @throws SQLException If something SQL relevant fails
+     */
+    public <R> R execute(String sql, StatementCallback<R> callback) throws SQLException {
+
+        Connection connection_ = this.acquireConnection();
+
+        try {
+            PreparedStatement preparedStatement = this.prepareStatement(connection_, sql);
+
+            try {
+                return callback.execute(preparedStatement);
+            } finally {
+                this.releaseStatement(connection_, preparedStatement);
             }
+        } finally {
+            this.releaseConnection(connection_);
+        }
+    }
+
+    /**
+     * Runs a callback in a transaction with the default isolation level of the
+     * connection.
+     *
+     * @param <R> The result
+     * @param callback The {@link xyz.joestr.dbwrapper.TransactionCallback}
+     * @return The result of the callback
+     * @throws SQLException If something SQL relevant fails or the callback
+     * throws a checked exception, which becomes the cause
+     * @see #inTransaction(int, xyz.joestr.dbwrapper.TransactionCallback)
+     */
+    public <R> R inTransaction(TransactionCallback<R> callback) throws SQLException {
+
+        return this.inTransaction(-1, callback);
+    }
+
+    /**
+     * Runs a callback in a transaction. All wrapper operations and all
+     * operations of {@link xyz.joestr.dbwrapper.special.mariadb.v10_0_38}
+     * which the calling thread runs inside the callback use the one
+     * connection of the transaction. The transaction is committed once when
+     * the callback returns and rolled back if it throws. A nested call joins
+     * the running transaction. Asynchronous operations run on other threads
+     * and therefore outside of the transaction.
+     *
+     * @param <R> The result
+     * @param isolationLevel One of the {@code TRANSACTION_} constants of
+     * {@link java.sql.Connection} or {@code -1} for the default of the
+     * connection
+     * @param callback The {@link xyz.joestr.dbwrapper.TransactionCallback}
+     * @return The result of the callback
+     * @throws SQLException If something SQL relevant fails or the callback
+     * throws a checked exception, which becomes the cause
+     */
+    public <R> R inTransaction(int isolationLevel, TransactionCallback<R> callback) throws SQLException {
+
+        if (callback == null) {
+            throw new NullPointerException("callback can not be null!");
+        }
+
+        DatabaseTransaction running = this.transaction.get();
+
+        if (running != null) {
+
+            return runCallback(callback, running);
+        }
+
+        Connection connection_ = this.acquireConnection();
+
+        try {
+            boolean autoCommit = connection_.getAutoCommit();
+            int previousIsolationLevel = connection_.getTransactionIsolation();
+
+            if (isolationLevel != -1 && isolationLevel != previousIsolationLevel) {
+                connection_.setTransactionIsolation(isolationLevel);
+            }
+
+            connection_.setAutoCommit(false);
+
+            DatabaseTransaction transaction_ = new DatabaseTransaction(
+                connection_, isolationLevel == -1 ? previousIsolationLevel : isolationLevel
+            );
+
+            this.transaction.set(transaction_);
+
+            Throwable failure = null;
+
+            try {
+                R result = runCallback(callback, transaction_);
+
+                if (transaction_.isRollbackOnly()) {
+                    transaction_.rollback();
+                } else {
+                    transaction_.commit();
+                }
+
+                return result;
+            } catch (SQLException | RuntimeException | Error e) {
+
+                try {
+                    transaction_.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+
+                failure = e;
+                throw e;
+            } finally {
+                this.transaction.remove();
+
+                try {
+                    connection_.setAutoCommit(autoCommit);
+
+                    if (connection_.getTransactionIsolation() != previousIsolationLevel) {
+                        connection_.setTransactionIsolation(previousIsolationLevel);
+                    }
+                } catch (SQLException resetFailure) {
+                    this.closeBrokenConnection(connection_, failure, resetFailure);
+                }
+            }
+        } finally {
+            this.releaseConnection(connection_);
+        }
+    }
+
+    /**
+     * Returns the transaction of the calling thread.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseTransaction} or
+     * {@code null} if the thread is not in a transaction
+     */
+    public DatabaseTransaction getTransaction() {
+        return this.transaction.get();
+    }
+
+    /**
+     * Runs a task on the asynchronous executor. At most
+     * {@link #getMaximumAsyncConcurrency()} tasks of this handler run at
+     * once, so a burst of tasks can not exhaust the connections; further
+     * tasks wait in a queue without occupying a thread. A persistent
+     * connection the task opens is closed when the task completes, as
+     * executor threads are not kept.
+     *
+     * @param <R> The result
+     * @param task The {@link xyz.joestr.dbwrapper.DatabaseTask}
+     * @return A {@link java.util.concurrent.CompletableFuture} which completes
+     * with the result of the task or exceptionally with its failure
+     */
+    public <R> CompletableFuture<R> executeAsync(DatabaseTask<R> task) {
+
+        if (task == null) {
+            throw new NullPointerException("task can not be null!");
+        }
+
+        return this.asyncTaskQueue.submit(() -> this.runAsyncTask(task));
+    }
+
+    /**
+     * Closes the connection pool, if any, and the connections of all threads.
+     * Shuts the default asynchronous executor down.
+     *
+     * @throws SQLException If something SQL relevant fails
+     */
+    @Override
+    public void close() throws SQLException {
+
+        synchronized (this) {
+
+            if (this.defaultAsyncExecutor != null) {
+
+                this.defaultAsyncExecutor.shutdown();
+            }
+        }
+
+        if (this.connectionPool != null) {
+
+            this.connectionPool.close();
+        }
+
+        SQLException failure = null;
+
+        for (Connection connection_ : this.threadConnections.keySet()) {
+
+            this.threadConnections.remove(connection_);
+            this.closeStatementCache(connection_);
+
+            try {
+                connection_.close();
+            } catch (SQLException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+
+        this.threadConnection.remove();
 
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Connects the calling thread to a database using the
+     * {@code connectionString}. The connection is confined to the thread and
+     * returned by {@link #getConnection()}.
+     *
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void connect() throws SQLException {
+
+        if (this.persistentConnection) {
+
+            this.acquirePersistentConnection();
             return;
         }
 
-        this.connection = DriverManager.getConnection(connectionString);
+        Connection previous = this.threadConnection.get();
+
+        if (previous != null) {
+            this.discardThreadConnection(previous);
+        }
+
+        this.registerThreadConnection(DriverManager.getConnection(this.connectionString));
     }
 
     /**
-     * Disconnects form a database.
+     * Disconnects the calling thread form a database. Other threads keep their
+     * connections.
      *
      * @throws SQLException If something SQL relevant fails
      */
@@ -64,7 +481,11 @@ public class DatabaseConnectionHandler {
             return;
         }
 
-        this.connection.close();
+        Connection connection_ = this.threadConnection.get();
+
+        if (connection_ != null) {
+            this.discardThreadConnection(connection_);
+        }
     }
 
     /**
@@ -77,12 +498,187 @@ public class DatabaseConnectionHandler {
     }
 
     /**
-     * Returns the {@code connection}.
+     * Returns the connection of the calling thread.
      *
-     * @return The {@link java.sql.Connection} to the database
+     * @return The {@link java.sql.Connection} to the database or {@code null}
+     * if the thread is not connected
      */
     public Connection getConnection() {
-        return this.connection;
+        return this.threadConnection.get();
+    }
+
+    /**
+     * Returns the {@code connectionPool}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseConnectionPool} or
+     * {@code null} if this handler is not pooled
+     */
+    public DatabaseConnectionPool getConnectionPool() {
+        return this.connectionPool;
+    }
+
+    /**
+     * Returns the {@code dialect}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseDialect} of the database
+     */
+    public DatabaseDialect getDialect() {
+        return this.dialect;
+    }
+
+    /**
+     * Sets the {@code dialect}. By default it is derived from the
+     * {@code connectionString}.
+     *
+     * @param dialect The {@link xyz.joestr.dbwrapper.DatabaseDialect} of the
+     * database
+     */
+    public void setDialect(DatabaseDialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Returns the {@code queryResultCache}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.QueryResultCache} or
+     * {@code null}
+     */
+    public QueryResultCache getQueryResultCache() {
+        return this.queryResultCache;
+    }
+
+    /**
+     * Sets the cache for the results of the {@code select} methods of all
+     * wrappers using this handler.
+     *
+     * @param queryResultCache The {@link xyz.joestr.dbwrapper.QueryResultCache}
+     * or {@code null} to disable caching
+     */
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Returns the {@code metricsListener}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseMetricsListener} or
+     * {@code null}
+     */
+    public DatabaseMetricsListener getMetricsListener() {
+        return this.metricsListener;
+    }
+
+    /**
+     * Sets the listener which receives the timings of this handler and of
+     * all wrappers using it. Without a listener no clock is read.
+     *
+     * @param metricsListener The
+     * {@link xyz.joestr.dbwrapper.DatabaseMetricsListener} or {@code null} to
+     * disable measuring
+     */
+    public void setMetricsListener(DatabaseMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Returns the {@code slowQueryLog}.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseSlowQueryLog} or
+     * {@code null}
+     */
+    public DatabaseSlowQueryLog getSlowQueryLog() {
+        return this.slowQueryLog;
+    }
+
+    /**
+     * Sets the log which receives the statements of all wrappers using this
+     * handler that are slower than its threshold.
+     *
+     * @param slowQueryLog The {@link xyz.joestr.dbwrapper.DatabaseSlowQueryLog}
+     * or {@code null} to disable logging
+     */
+    public void setSlowQueryLog(DatabaseSlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Returns the {@code asyncExecutor}.
+     *
+     * @return The {@link java.util.concurrent.Executor} or {@code null} if the
+     * default executor is used
+     */
+    public Executor getAsyncExecutor() {
+        return this.asyncExecutor;
+    }
+
+    /**
+     * Sets the executor of the asynchronous operations. By default virtual
+     * threads are used where the runtime has them, else a pool of
+     * {@link #getMaximumAsyncConcurrency()} daemon threads.
+     *
+     * @param asyncExecutor The {@link java.util.concurrent.Executor} or
+     * {@code null} for the default executor
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Returns the maximum number of asynchronous operations which run at once.
+     *
+     * @return An {@code int}
+     */
+    public int getMaximumAsyncConcurrency() {
+        return this.asyncTaskQueue.getMaximumConcurrency();
+    }
+
+    /**
+     * Sets the maximum number of asynchronous operations which run at once.
+     * It defaults to the maximum pool size or, if this handler is not pooled,
+     * to the number of processors. The size of the default thread pool is
+     * fixed once it is created.
+     *
+     * @param maximumAsyncConcurrency The maximum number of operations
+     * @throws IllegalArgumentException If {@code maximumAsyncConcurrency} is
+     * less than 1
+     */
+    public void setMaximumAsyncConcurrency(int maximumAsyncConcurrency) {
+
+        if (maximumAsyncConcurrency < 1) {
+            throw new IllegalArgumentException("maximumAsyncConcurrency must be at least 1!");
+        }
+
+        this.asyncTaskQueue.setMaximumConcurrency(maximumAsyncConcurrency);
+    }
+
+    /**
+     * Returns the number of asynchronous operations which wait for a free
+     * slot.
+     *
+     * @return An {@code int}
+     */
+    public int getQueuedAsyncTaskCount() {
+        return this.asyncTaskQueue.getQueuedCount();
+    }
+
+    /**
+     * Returns the maximum number of cached statements per connection.
+     *
+     * @return An {@code int}
+     */
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of cached statements per connection. The least
+     * recently used statement is closed if the cache is full. {@code 0}
+     * disables the cache for connections cached afterwards.
+     *
+     * @param statementCacheSize The maximum number of cached statements
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
     }
 
     /**
@@ -97,6 +693,10 @@ public class DatabaseConnectionHandler {
 
     /**
      * Set the flag, if the connection should not be closed after an operation.
+     * Every thread then keeps its own connection until this handler is
+     * closed. The connection of a thread which ended is closed when the next
+     * thread connects, and asynchronous tasks close theirs when they
+     * complete.
      *
      * @param persistentConnection If the connection should not be closed after
      * an operation.
@@ -104,4 +704,215 @@ public class DatabaseConnectionHandler {
     public void setPersistentConnection(boolean persistentConnection) {
         this.persistentConnection = persistentConnection;
     }
+
+    /**
+     * Returns the persistent connection of the calling thread and reopens it
+     * if necessary.
+     */
+    private Connection acquirePersistentConnection() throws SQLException {
+
+        Connection connection_ = this.threadConnection.get();
+
+        if (connection_ != null && connection_.isValid(0)) {
+
+            return connection_;
+        }
+
+        if (connection_ != null) {
+
+            try {
+                this.discardThreadConnection(connection_);
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to close a broken connection", e);
+            }
+        }
+
+        return this.registerThreadConnection(DriverManager.getConnection(this.connectionString));
+    }
+
+    private Connection registerThreadConnection(Connection connection) {
+
+        this.closeAbandonedThreadConnections();
+
+        this.threadConnection.set(connection);
+        this.threadConnections.put(connection, Thread.currentThread());
+
+        return connection;
+    }
+
+    /**
+     * Closes the connections of threads which ended without giving them
+     * back.
+     */
+    private void closeAbandonedThreadConnections() {
+
+        for (Map.Entry<Connection, Thread> entry : this.threadConnections.entrySet()) {
+
+            if (entry.getValue().isAlive() || !this.threadConnections.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+
+            this.closeStatementCache(entry.getKey());
+
+            try {
+                entry.getKey().close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Failed to close the connection of an ended thread", e);
+            }
+        }
+    }
+
+    /**
+     * Runs an asynchronous task and closes the persistent connection it
+     * opened on the executor thread.
+     */
+    private <R> R runAsyncTask(DatabaseTask<R> task) throws Exception {
+
+        Connection previous = this.threadConnection.get();
+
+        try {
+            return task.execute();
+        } finally {
+
+            Connection connection_ = this.threadConnection.get();
+
+            if (connection_ != null && connection_ != previous) {
+
+                try {
+                    this.discardThreadConnection(connection_);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Failed to close the connection of an asynchronous task", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the connection of the calling thread.
+     */
+    private void discardThreadConnection(Connection connection) throws SQLException {
+
+        this.threadConnection.remove();
+        this.threadConnections.remove(connection);
+        this.closeStatementCache(connection);
+
+        connection.close();
+    }
+
+    /**
+     * Closes a connection which could not be reset after a transaction, so it
+     * is not reused in an unknown state. The reset failure is added to the
+     * failure of the transaction, if any, and logged otherwise, as the
+     * transaction is committed already.
+     */
+    private void closeBrokenConnection(Connection connection, Throwable failure, SQLException resetFailure) {
+
+        if (failure != null) {
+            failure.addSuppressed(resetFailure);
+        } else {
+            LOGGER.log(Level.WARNING, "Failed to reset a connection after a transaction", resetFailure);
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to close a broken connection", e);
+        }
+    }
+
+    /**
+     * Runs a transaction callback and turns checked exceptions other than
+     * {@link java.sql.SQLException} into one.
+     */
+    private static <R> R runCallback(TransactionCallback<R> callback, DatabaseTransaction transaction) throws SQLException {
+
+        try {
+            return callback.execute(transaction);
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the configured executor or creates the default one.
+     */
+    private Executor resolveAsyncExecutor() {
+
+        Executor executor = this.asyncExecutor;
+
+        if (executor != null) {
+            return executor;
+        }
+
+        synchronized (this) {
+
+            if (this.defaultAsyncExecutor == null) {
+                this.defaultAsyncExecutor = createDefaultAsyncExecutor(this.asyncTaskQueue.getMaximumConcurrency());
+            }
+
+            return this.defaultAsyncExecutor;
+        }
+    }
+
+    /**
+     * Creates an executor with virtual threads if the runtime has them, else
+     * a fixed pool of daemon threads.
+     */
+    private static ExecutorService createDefaultAsyncExecutor(int threads) {
+
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Virtual threads are not available", e);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+
+            Thread thread = new Thread(runnable, "DBWrapper-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+
+        return Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Derives the dialect from the JDBC sub protocol.
+     */
+    private static DatabaseDialect resolveDialect(String connectionString) {
+
+        if (connectionString != null
+            && (connectionString.startsWith("jdbc:mariadb:") || connectionString.startsWith("jdbc:mysql:"))) {
+
+            return new MariaDBDialect();
+        }
+
+        return DatabaseDialect.GENERIC;
+    }
+
+    /**
+     * Returns {@code true} if connections outlive a single operation.
+     */
+    private boolean isConnectionReused() {
+
+        return this.connectionPool != null || this.persistentConnection;
+    }
+
+    /**
+     * Closes the cached statements of a connection which is about to be
+     * closed.
+     */
+    private void closeStatementCache(Connection connection) {
+
+        StatementCache statementCache = this.statementCaches.remove(connection);
+
+        if (statementCache != null) {
+
+            statementCache.close();
+        }
+    }
 }
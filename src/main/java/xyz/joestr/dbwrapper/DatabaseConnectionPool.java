@@ -0,0 +1,499 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of {@link java.sql.Connection}s to a database.
+ * <p>
+ * At most {@code maximumSize} connections are leased at the same time. Idle
+ * connections above {@code minimumSize} are closed after the idle timeout and
+ * leased connections which are not returned within the leak detection
+ * threshold are reported. The pool can be shared by many threads.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class DatabaseConnectionPool implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseConnectionPool.class.getName());
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 1000L;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String connectionString;
+    private final int minimumSize;
+    private final int maximumSize;
+    private final Semaphore permits;
+    private final BlockingDeque<IdleConnection> idleConnections;
+    private final ConcurrentMap<Connection, Lease> leasedConnections;
+    private final AtomicInteger totalConnections;
+    private final ScheduledExecutorService housekeeper;
+    private final Object idleLock = new Object();
+    private volatile long idleTimeout = 600000L;
+    private volatile long acquireTimeout = 30000L;
+    private volatile long leakDetectionThreshold = 0L;
+    private volatile long validationInterval = 5000L;
+    private volatile boolean closed = false;
+    private volatile Consumer<Connection> discardListener = null;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionPool}.
+     *
+     * @param connectionString The connection string
+     * @param minimumSize The number of connections which are kept open
+     * @param maximumSize The maximum number of leased connections
+     * @throws IllegalArgumentException If the sizes are invalid
+     */
+    public DatabaseConnectionPool(String connectionString, int minimumSize, int maximumSize) {
+
+        if (minimumSize < 0 || maximumSize < 1 || minimumSize > maximumSize) {
+            throw new IllegalArgumentException("pool sizes must satisfy 0 <= minimumSize <= maximumSize and maximumSize >= 1!");
+        }
+
+        this.connectionString = connectionString;
+        this.minimumSize = minimumSize;
+        this.maximumSize = maximumSize;
+        this.permits = new Semaphore(maximumSize, true);
+        this.idleConnections = new LinkedBlockingDeque<>();
+        this.leasedConnections = new ConcurrentHashMap<>();
+        this.totalConnections = new AtomicInteger();
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DBWrapper-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(
+            this::houseKeep, 0L, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Borrows a connection from the pool. Waits at most the acquire timeout
+     * if all connections are leased.
+     *
+     * @return A {@link java.sql.Connection} which must be given back with
+     * {@link #release(java.sql.Connection)}
+     * @throws SQLTimeoutException If no connection was available in time
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Connection acquire() throws SQLException {
+
+        if (this.closed) {
+            throw new SQLException("The connection pool is closed!");
+        }
+
+        try {
+            if (!this.permits.tryAcquire(this.acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException(
+                    "Timed out after " + this.acquireTimeout + " ms waiting for a connection!"
+                );
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection!", e);
+        }
+
+        try {
+            Connection connection = null;
+
+            IdleConnection idleConnection;
+            // Most recently used first, so the warm connections stay in use
+            while (connection == null && (idleConnection = this.idleConnections.pollFirst()) != null) {
+
+                if (this.isUsable(idleConnection)) {
+                    connection = idleConnection.connection;
+                } else {
+                    this.discard(idleConnection.connection);
+                }
+            }
+
+            if (connection == null) {
+                connection = this.open();
+            }
+
+            this.leasedConnections.put(
+                connection,
+                new Lease(
+                    System.currentTimeMillis(),
+                    this.leakDetectionThreshold > 0L ? new Throwable("Connection acquired here") : null
+                )
+            );
+
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a connection back to the pool. An open transaction is rolled
+     * back.
+     *
+     * @param connection The {@link java.sql.Connection} obtained by
+     * {@link #acquire()}
+     * @throws IllegalArgumentException If the connection is not leased from
+     * this pool
+     */
+    public void release(Connection connection) {
+
+        if (this.leasedConnections.remove(connection) == null) {
+            throw new IllegalArgumentException("connection is not leased from this pool!");
+        }
+
+        try {
+            if (this.closed
+                || connection.isClosed()
+                || this.totalConnections.get() > this.maximumSize) {
+
+                this.discard(connection);
+                return;
+            }
+
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+
+            this.addIdle(new IdleConnection(connection, System.currentTimeMillis()), true);
+        } catch (SQLException e) {
+            this.discard(connection);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Closes the pool and all idle connections. Leased connections are closed
+     * when they are released.
+     */
+    @Override
+    public void close() {
+
+        List<IdleConnection> idleConnections_ = new ArrayList<>();
+
+        // No connection can be added after the deque was drained
+        synchronized (this.idleLock) {
+
+            this.closed = true;
+            this.idleConnections.drainTo(idleConnections_);
+        }
+
+        this.housekeeper.shutdownNow();
+
+        for (IdleConnection idleConnection : idleConnections_) {
+            this.discard(idleConnection.connection);
+        }
+    }
+
+    /**
+     * Returns the number of open connections, leased or idle.
+     *
+     * @return An {@code int}
+     */
+    public int getTotalConnections() {
+        return this.totalConnections.get();
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return An {@code int}
+     */
+    public int getIdleConnections() {
+        return this.idleConnections.size();
+    }
+
+    /**
+     * Returns the number of leased connections.
+     *
+     * @return An {@code int}
+     */
+    public int getLeasedConnections() {
+        return this.leasedConnections.size();
+    }
+
+    /**
+     * Returns the number of connections which are kept open.
+     *
+     * @return An {@code int}
+     */
+    public int getMinimumSize() {
+        return this.minimumSize;
+    }
+
+    /**
+     * Returns the maximum number of leased connections.
+     *
+     * @return An {@code int}
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * Returns the time in milliseconds after which an idle connection above
+     * the minimum size is closed.
+     *
+     * @return A {@code long}
+     */
+    public long getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds after which an idle connection above the
+     * minimum size is closed.
+     *
+     * @param idleTimeout The idle timeout in milliseconds
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the time in milliseconds {@link #acquire()} waits for a
+     * connection.
+     *
+     * @return A {@code long}
+     */
+    public long getAcquireTimeout() {
+        return this.acquireTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds {@link #acquire()} waits for a connection.
+     *
+     * @param acquireTimeout The acquire timeout in milliseconds
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Returns the time in milliseconds after which a leased connection is
+     * reported as leaked. {@code 0} disables the leak detection.
+     *
+     * @return A {@code long}
+     */
+    public long getLeakDetectionThreshold() {
+        return this.leakDetectionThreshold;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a leased connection is
+     * reported as leaked. {@code 0} disables the leak detection.
+     *
+     * @param leakDetectionThreshold The threshold in milliseconds
+     */
+    public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    /**
+     * Returns the time in milliseconds a connection may be idle before it is
+     * validated again on {@link #acquire()}.
+     *
+     * @return A {@code long}
+     */
+    public long getValidationInterval() {
+        return this.validationInterval;
+    }
+
+    /**
+     * Sets the time in milliseconds a connection may be idle before it is
+     * validated again on {@link #acquire()}.
+     *
+     * @param validationInterval The validation interval in milliseconds
+     */
+    public void setValidationInterval(long validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    /**
+     * Sets a listener which is notified before a physical connection is
+     * closed.
+     */
+    void setDiscardListener(Consumer<Connection> discardListener) {
+        this.discardListener = discardListener;
+    }
+
+    /**
+     * Opens a new physical connection.
+     */
+    private Connection open() throws SQLException {
+
+        Connection connection = DriverManager.getConnection(this.connectionString);
+
+        this.totalConnections.incrementAndGet();
+
+        return connection;
+    }
+
+    /**
+     * Puts a connection into the idle deque, or closes it if the pool is
+     * closed.
+     */
+    private void addIdle(IdleConnection idleConnection, boolean first) {
+
+        synchronized (this.idleLock) {
+
+            if (!this.closed) {
+
+                if (first) {
+                    this.idleConnections.offerFirst(idleConnection);
+                } else {
+                    this.idleConnections.offerLast(idleConnection);
+                }
+
+                return;
+            }
+        }
+
+        this.discard(idleConnection.connection);
+    }
+
+    /**
+     * Closes a physical connection and ignores any failure.
+     */
+    private void discard(Connection connection) {
+
+        this.totalConnections.decrementAndGet();
+
+        Consumer<Connection> listener = this.discardListener;
+
+        if (listener != null) {
+            listener.accept(connection);
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to close a pooled connection", e);
+        }
+    }
+
+    /**
+     * Checks if an idle connection can be handed out again.
+     */
+    private boolean isUsable(IdleConnection idleConnection) {
+
+        try {
+            if (idleConnection.connection.isClosed()) {
+                return false;
+            }
+
+            if (System.currentTimeMillis() - idleConnection.idleSince < this.validationInterval) {
+                return true;
+            }
+
+            return idleConnection.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Evicts idle connections, keeps the minimum size open and reports leaked
+     * connections.
+     */
+    private void houseKeep() {
+
+        try {
+            long now = System.currentTimeMillis();
+
+            Iterator<IdleConnection> iterator = this.idleConnections.descendingIterator();
+
+            while (iterator.hasNext() && this.totalConnections.get() > this.minimumSize) {
+
+                IdleConnection idleConnection = iterator.next();
+
+                if (now - idleConnection.idleSince >= this.idleTimeout
+                    && this.idleConnections.removeFirstOccurrence(idleConnection)) {
+
+                    this.discard(idleConnection.connection);
+                }
+            }
+
+            while (!this.closed && this.totalConnections.get() < this.minimumSize && this.permits.tryAcquire()) {
+
+                try {
+                    this.addIdle(new IdleConnection(this.open(), now), false);
+                } finally {
+                    this.permits.release();
+                }
+            }
+
+            long threshold = this.leakDetectionThreshold;
+
+            if (threshold > 0L) {
+
+                for (Map.Entry<Connection, Lease> entry : this.leasedConnections.entrySet()) {
+
+                    Lease lease = entry.getValue();
+
+                    if (!lease.reported && now - lease.acquiredAt >= threshold) {
+
+                        lease.reported = true;
+
+                        LOGGER.log(
+                            Level.WARNING,
+                            "Connection leak detected: leased for more than " + threshold + " ms",
+                            lease.origin
+                        );
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    /**
+     * A connection waiting in the pool.
+     */
+    private static final class IdleConnection {
+
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Book-keeping for a leased connection.
+     */
+    private static final class Lease {
+
+        private final long acquiredAt;
+        private final Throwable origin;
+        private volatile boolean reported = false;
+
+        private Lease(long acquiredAt, Throwable origin) {
+            this.acquiredAt = acquiredAt;
+            this.origin = origin;
+        }
+    }
+}
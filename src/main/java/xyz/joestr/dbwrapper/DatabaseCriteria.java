@@ -0,0 +1,363 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A condition on the fields of a wrapped class which compiles to SQL with
+ * {@code ?} placeholders. All predicates are combined with {@code AND}.
+ * <p>
+ * Because values never end up in the SQL text, the text stays the same for
+ * every call with the same shape and can be served from the statement cache.
+ * The values of {@link #in(java.lang.String, java.util.Collection)} are padded
+ * to the next power of two for the same reason.
+ * <pre>
+ * wrapper.select(
+ *     new DatabaseCriteria()
+ *         .equal("status", "active")
+ *         .between("age", 18, 30)
+ *         .orderBy("name")
+ *         .limit(10)
+ * );
+ * </pre>
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class DatabaseCriteria {
+
+    private final List<Predicate> predicates = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private int limit = -1;
+
+    /**
+     * Matches rows where the field equals the value. {@code null} matches
+     * {@code NULL}.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria equal(String fieldName, Object value) {
+
+        if (value == null) {
+            return this.isNull(fieldName);
+        }
+
+        return this.add(fieldName, "=", value);
+    }
+
+    /**
+     * Matches rows where the field does not equal the value. {@code null}
+     * matches every value except {@code NULL}.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria notEqual(String fieldName, Object value) {
+
+        if (value == null) {
+            return this.isNotNull(fieldName);
+        }
+
+        return this.add(fieldName, "<>", value);
+    }
+
+    /**
+     * Matches rows where the field is less than the value.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria lessThan(String fieldName, Object value) {
+        return this.add(fieldName, "<", requireValue(value));
+    }
+
+    /**
+     * Matches rows where the field is less than or equal to the value.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria lessThanOrEqual(String fieldName, Object value) {
+        return this.add(fieldName, "<=", requireValue(value));
+    }
+
+    /**
+     * Matches rows where the field is greater than the value.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria greaterThan(String fieldName, Object value) {
+        return this.add(fieldName, ">", requireValue(value));
+    }
+
+    /**
+     * Matches rows where the field is greater than or equal to the value.
+     *
+     * @param fieldName The name of the field
+     * @param value The value
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria greaterThanOrEqual(String fieldName, Object value) {
+        return this.add(fieldName, ">=", requireValue(value));
+    }
+
+    /**
+     * Matches rows where the field lies between both values, inclusive.
+     *
+     * @param fieldName The name of the field
+     * @param from The lower bound
+     * @param to The upper bound
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria between(String fieldName, Object from, Object to) {
+
+        this.predicates.add(new Predicate(fieldName, " BETWEEN ? AND ?", Arrays.asList(requireValue(from), requireValue(to))));
+
+        return this;
+    }
+
+    /**
+     * Matches rows where the field equals one of the values. An empty
+     * collection matches no row.
+     *
+     * @param fieldName The name of the field
+     * @param values The values
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria in(String fieldName, Collection<?> values) {
+
+        if (values.isEmpty()) {
+
+            this.predicates.add(new Predicate(fieldName, null, Collections.emptyList()));
+            return this;
+        }
+
+        List<Object> paddedValues = new ArrayList<>(values);
+
+        for (Object value : paddedValues) {
+            requireValue(value);
+        }
+
+        int size = Integer.highestOneBit(paddedValues.size());
+
+        if (size < paddedValues.size()) {
+            size <<= 1;
+        }
+
+        // Repeating a value does not change the result, but keeps the text stable
+        Object last = paddedValues.get(paddedValues.size() - 1);
+
+        while (paddedValues.size() < size) {
+            paddedValues.add(last);
+        }
+
+        StringBuilder stringBuilder = new StringBuilder(" IN (?");
+
+        for (int i = 1; i < size; i++) {
+            stringBuilder.append(", ?");
+        }
+
+        stringBuilder.append(")");
+
+        this.predicates.add(new Predicate(fieldName, stringBuilder.toString(), paddedValues));
+
+        return this;
+    }
+
+    /**
+     * Matches rows where the field is {@code NULL}.
+     *
+     * @param fieldName The name of the field
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria isNull(String fieldName) {
+
+        this.predicates.add(new Predicate(fieldName, " IS NULL", Collections.emptyList()));
+
+        return this;
+    }
+
+    /**
+     * Matches rows where the field is not {@code NULL}.
+     *
+     * @param fieldName The name of the field
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria isNotNull(String fieldName) {
+
+        this.predicates.add(new Predicate(fieldName, " IS NOT NULL", Collections.emptyList()));
+
+        return this;
+    }
+
+    /**
+     * Orders the rows ascending by the field. Can be called repeatedly.
+     *
+     * @param fieldName The name of the field
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria orderBy(String fieldName) {
+
+        this.orders.add(new Order(fieldName, true));
+
+        return this;
+    }
+
+    /**
+     * Orders the rows descending by the field. Can be called repeatedly.
+     *
+     * @param fieldName The name of the field
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     */
+    public DatabaseCriteria orderByDescending(String fieldName) {
+
+        this.orders.add(new Order(fieldName, false));
+
+        return this;
+    }
+
+    /**
+     * Limits the number of rows.
+     *
+     * @param limit The maximum number of rows
+     * @return This {@link xyz.joestr.dbwrapper.DatabaseCriteria}
+     * @throws IllegalArgumentException If {@code limit} is negative
+     */
+    public DatabaseCriteria limit(int limit) {
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit can not be negative!");
+        }
+
+        this.limit = limit;
+
+        return this;
+    }
+
+    /**
+     * Compiles the criteria to the clauses which follow the {@code FROM}
+     * clause.
+     *
+     * @param columnResolver Resolves a field name to its column name and throws
+     * {@link java.lang.IllegalArgumentException} for unknown fields
+     * @param dialect The {@link xyz.joestr.dbwrapper.DatabaseDialect}
+     * @param withOrderAndLimit If the {@code ORDER BY} and the limit are
+     * compiled, too
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseCriteria.Compiled}
+     * criteria
+     */
+    Compiled compile(Function<String, String> columnResolver, DatabaseDialect dialect, boolean withOrderAndLimit) {
+
+        StringBuilder stringBuilder = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
+
+        for (int i = 0; i < this.predicates.size(); i++) {
+
+            Predicate predicate = this.predicates.get(i);
+
+            stringBuilder.append(i == 0 ? " WHERE " : " AND ");
+
+            String columnName = columnResolver.apply(predicate.fieldName);
+
+            if (predicate.sql == null) {
+
+                stringBuilder.append("1 = 0");
+            } else {
+
+                stringBuilder.append(columnName).append(predicate.sql);
+                parameters.addAll(predicate.values);
+            }
+        }
+
+        if (withOrderAndLimit) {
+
+            for (int i = 0; i < this.orders.size(); i++) {
+
+                Order order = this.orders.get(i);
+
+                stringBuilder.append(i == 0 ? " ORDER BY " : ", ");
+                stringBuilder.append(columnResolver.apply(order.fieldName));
+                stringBuilder.append(order.ascending ? " ASC" : " DESC");
+            }
+
+            if (this.limit >= 0) {
+
+                stringBuilder.append(dialect.limitClause());
+                parameters.add(this.limit);
+            }
+        }
+
+        return new Compiled(stringBuilder.toString(), parameters);
+    }
+
+    private DatabaseCriteria add(String fieldName, String operator, Object value) {
+
+        this.predicates.add(new Predicate(fieldName, " " + operator + " ?", Collections.singletonList(value)));
+
+        return this;
+    }
+
+    private static Object requireValue(Object value) {
+
+        if (value == null) {
+            throw new NullPointerException("value can not be null!");
+        }
+
+        return value;
+    }
+
+    /**
+     * The SQL text and the parameters of compiled criteria.
+     */
+    static final class Compiled {
+
+        final String sql;
+        final List<Object> parameters;
+
+        Compiled(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * A predicate on one field. A {@code null} SQL text matches no row.
+     */
+    private static final class Predicate {
+
+        private final String fieldName;
+        private final String sql;
+        private final List<Object> values;
+
+        private Predicate(String fieldName, String sql, List<Object> values) {
+            this.fieldName = fieldName;
+            this.sql = sql;
+            this.values = values;
+        }
+    }
+
+    /**
+     * An entry of the {@code ORDER BY} clause.
+     */
+    private static final class Order {
+
+        private final String fieldName;
+        private final boolean ascending;
+
+        private Order(String fieldName, boolean ascending) {
+            this.fieldName = fieldName;
+            this.ascending = ascending;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Describes the SQL features of a database which go beyond standard SQL. The
+ * default methods describe a database which supports none of them.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public interface DatabaseDialect {
+
+    /**
+     * A dialect which only relies on standard SQL.
+     */
+    public static final DatabaseDialect GENERIC = new DatabaseDialect() {
+    };
+
+    /**
+     * Returns {@code true} if an {@code INSERT} can carry many rows in the
+     * form {@code VALUES(...), (...)}. Else {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public default boolean supportsMultiRowInsert() {
+        return false;
+    }
+
+    /**
+     * Returns the maximum number of parameters of one statement.
+     *
+     * @return An {@code int}
+     */
+    public default int maximumParameterCount() {
+        return 32767;
+    }
+
+    /**
+     * Prepares a statement to stream its rows instead of reading the whole
+     * result into memory.
+     *
+     * @param preparedStatement The {@link java.sql.PreparedStatement}
+     * @param fetchSize The number of rows fetched per round trip
+     * @throws SQLException If something SQL relevant fails
+     */
+    public default void configureStreaming(PreparedStatement preparedStatement, int fetchSize) throws SQLException {
+
+        preparedStatement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Returns the clause which limits the number of rows with one
+     * {@code ?} placeholder.
+     *
+     * @return A {@link java.lang.String}
+     */
+    public default String limitClause() {
+        return " FETCH FIRST ? ROWS ONLY";
+    }
+
+    /**
+     * Returns a statement which inserts a row or, if a row with the same key
+     * exists, updates it. The placeholders are the columns in order.
+     *
+     * @param tableName The name of the table
+     * @param columnNames The names of the columns
+     * @param keyColumnNames The names of the primary key columns
+     * @return A {@link java.lang.String} or {@code null} if the database has
+     * no such statement; the update and the insert are then sent one after
+     * another
+     */
+    public default String upsertSql(String tableName, List<String> columnNames, List<String> keyColumnNames) {
+        return null;
+    }
+}
@@ -0,0 +1,288 @@
+package xyz.joestr.dbwrapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects the timings, row counts and errors reported to a
+ * {@link xyz.joestr.dbwrapper.DatabaseMetricsListener} in
+ * {@link xyz.joestr.dbwrapper.LatencyHistogram}s per table and operation.
+ * The values can be read directly or through JMX after
+ * {@link #registerMBean(java.lang.String)}.
+ * <pre>
+ * DatabaseMetrics metrics = new DatabaseMetrics();
+ *
+ * handler.setMetricsListener(metrics);
+ * metrics.registerMBean("orders");
+ * </pre>
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class DatabaseMetrics implements DatabaseMetricsListener, DatabaseMetricsMXBean {
+
+    private static final DatabaseOperation[] OPERATIONS = DatabaseOperation.values();
+
+    private final LatencyHistogram connectionAcquireTime = new LatencyHistogram();
+    private final LatencyHistogram statementPrepareTime = new LatencyHistogram();
+    private final ConcurrentMap<String, OperationMetrics[]> operations = new ConcurrentHashMap<>();
+    private ObjectName objectName;
+
+    @Override
+    public void connectionAcquired(long nanos) {
+
+        this.connectionAcquireTime.record(nanos);
+    }
+
+    @Override
+    public void statementPrepared(long nanos) {
+
+        this.statementPrepareTime.record(nanos);
+    }
+
+    @Override
+    public void operationExecuted(String tableName, DatabaseOperation operation, long executeNanos, long hydrateNanos, long rowCount) {
+
+        OperationMetrics metrics = this.metricsOf(tableName, operation);
+
+        metrics.executeTime.record(executeNanos);
+
+        if (operation == DatabaseOperation.SELECT) {
+            metrics.hydrateTime.record(hydrateNanos);
+        }
+
+        metrics.rowCount.add(rowCount);
+    }
+
+    @Override
+    public void operationFailed(String tableName, DatabaseOperation operation, Exception exception) {
+
+        this.metricsOf(tableName, operation).errorCount.increment();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getConnectionAcquireTime() {
+        return this.connectionAcquireTime.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getStatementPrepareTime() {
+        return this.statementPrepareTime.snapshot();
+    }
+
+    @Override
+    public List<OperationStatistics> getOperations() {
+
+        List<OperationStatistics> result = new ArrayList<>();
+
+        for (Map.Entry<String, OperationMetrics[]> entry : this.operations.entrySet()) {
+
+            for (DatabaseOperation operation : OPERATIONS) {
+
+                OperationMetrics metrics = entry.getValue()[operation.ordinal()];
+
+                if (metrics.executeTime.getCount() > 0 || metrics.errorCount.sum() > 0) {
+                    result.add(new OperationStatistics(entry.getKey(), operation, metrics));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the statistics of one table and operation.
+     *
+     * @param tableName The name of the table
+     * @param operation The {@link xyz.joestr.dbwrapper.DatabaseOperation}
+     * @return The {@link xyz.joestr.dbwrapper.DatabaseMetrics.OperationStatistics}
+     */
+    public OperationStatistics getOperation(String tableName, DatabaseOperation operation) {
+
+        return new OperationStatistics(tableName, operation, this.metricsOf(tableName, operation));
+    }
+
+    @Override
+    public long getErrorCount() {
+
+        long errorCount = 0;
+
+        for (OperationMetrics[] metrics : this.operations.values()) {
+            for (OperationMetrics metrics_ : metrics) {
+                errorCount += metrics_.errorCount.sum();
+            }
+        }
+
+        return errorCount;
+    }
+
+    @Override
+    public void reset() {
+
+        this.connectionAcquireTime.reset();
+        this.statementPrepareTime.reset();
+        this.operations.clear();
+    }
+
+    /**
+     * Registers these metrics at the platform MBean server as
+     * {@code xyz.joestr.dbwrapper:type=DatabaseMetrics,name=<name>}.
+     *
+     * @param name The name which tells the metrics of several handlers apart
+     * @return The {@link javax.management.ObjectName}
+     * @throws IllegalStateException If these metrics are registered already
+     * @throws JMException If the registration fails
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+
+        if (name == null) {
+            throw new NullPointerException("name can not be null!");
+        }
+
+        if (this.objectName != null) {
+            throw new IllegalStateException("The metrics are registered already!");
+        }
+
+        ObjectName objectName_ = new ObjectName(
+            "xyz.joestr.dbwrapper:type=DatabaseMetrics,name=" + ObjectName.quote(name)
+        );
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName_);
+
+        this.objectName = objectName_;
+
+        return objectName_;
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server, if they are
+     * registered.
+     *
+     * @throws JMException If the unregistration fails
+     */
+    public synchronized void unregisterMBean() throws JMException {
+
+        if (this.objectName == null) {
+            return;
+        }
+
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+
+        this.objectName = null;
+    }
+
+    private OperationMetrics metricsOf(String tableName, DatabaseOperation operation) {
+
+        OperationMetrics[] metrics = this.operations.get(tableName);
+
+        if (metrics == null) {
+            metrics = this.operations.computeIfAbsent(tableName, key -> {
+
+                OperationMetrics[] metrics_ = new OperationMetrics[OPERATIONS.length];
+
+                for (int i = 0; i < metrics_.length; i++) {
+                    metrics_[i] = new OperationMetrics();
+                }
+
+                return metrics_;
+            });
+        }
+
+        return metrics[operation.ordinal()];
+    }
+
+    /**
+     * The recorded values of one table and operation.
+     */
+    private static final class OperationMetrics {
+
+        private final LatencyHistogram executeTime = new LatencyHistogram();
+        private final LatencyHistogram hydrateTime = new LatencyHistogram();
+        private final LongAdder rowCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+    }
+
+    /**
+     * The statistics of one table and operation at one point in time. All
+     * durations are in nanoseconds.
+     */
+    public static final class OperationStatistics {
+
+        private final String tableName;
+        private final DatabaseOperation operation;
+        private final LatencyHistogram.Snapshot executeTime;
+        private final LatencyHistogram.Snapshot hydrateTime;
+        private final long rowCount;
+        private final long errorCount;
+
+        private OperationStatistics(String tableName, DatabaseOperation operation, OperationMetrics metrics) {
+            this.tableName = tableName;
+            this.operation = operation;
+            this.executeTime = metrics.executeTime.snapshot();
+            this.hydrateTime = metrics.hydrateTime.snapshot();
+            this.rowCount = metrics.rowCount.sum();
+            this.errorCount = metrics.errorCount.sum();
+        }
+
+        /**
+         * Returns the name of the table.
+         *
+         * @return A {@link java.lang.String}
+         */
+        public String getTableName() {
+            return this.tableName;
+        }
+
+        /**
+         * Returns the operation.
+         *
+         * @return The {@link xyz.joestr.dbwrapper.DatabaseOperation}
+         */
+        public DatabaseOperation getOperation() {
+            return this.operation;
+        }
+
+        /**
+         * Returns the durations of executing the statements.
+         *
+         * @return The {@link xyz.joestr.dbwrapper.LatencyHistogram.Snapshot}
+         */
+        public LatencyHistogram.Snapshot getExecuteTime() {
+            return this.executeTime;
+        }
+
+        /**
+         * Returns the durations of reading and hydrating the rows of selects.
+         *
+         * @return The {@link xyz.joestr.dbwrapper.LatencyHistogram.Snapshot}
+         */
+        public LatencyHistogram.Snapshot getHydrateTime() {
+            return this.hydrateTime;
+        }
+
+        /**
+         * Returns the number of read or written rows.
+         *
+         * @return A {@code long}
+         */
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+        /**
+         * Returns the number of failed statements.
+         *
+         * @return A {@code long}
+         */
+        public long getErrorCount() {
+            return this.errorCount;
+        }
+    }
+}
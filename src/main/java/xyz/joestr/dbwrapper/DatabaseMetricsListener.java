@@ -0,0 +1,59 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * Receives the timings of a {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+ * and of the wrappers using it. Set one with
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#setMetricsListener(xyz.joestr.dbwrapper.DatabaseMetricsListener)};
+ * without a listener nothing is measured.
+ * <p>
+ * The methods are called on the thread running the statement, while the
+ * connection is held, so they must be fast and thread-safe.
+ * {@link xyz.joestr.dbwrapper.DatabaseMetrics} is such an implementation.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public interface DatabaseMetricsListener {
+
+    /**
+     * Called after a connection was acquired.
+     *
+     * @param nanos The time it took to acquire the connection
+     */
+    public default void connectionAcquired(long nanos) {
+    }
+
+    /**
+     * Called after a statement was prepared or taken from the statement
+     * cache.
+     *
+     * @param nanos The time it took to prepare the statement
+     */
+    public default void statementPrepared(long nanos) {
+    }
+
+    /**
+     * Called after a wrapper ran a statement. Batches report one call per
+     * executed chunk.
+     *
+     * @param tableName The name of the table
+     * @param operation The {@link xyz.joestr.dbwrapper.DatabaseOperation}
+     * @param executeNanos The time it took to execute the statement
+     * @param hydrateNanos The time it took to read and hydrate the rows;
+     * {@code 0} for writing statements
+     * @param rowCount The number of read or written rows; {@code 0} for
+     * streamed selects, whose rows are read later
+     */
+    public default void operationExecuted(String tableName, DatabaseOperation operation, long executeNanos, long hydrateNanos, long rowCount) {
+    }
+
+    /**
+     * Called after a wrapper failed to run a statement.
+     *
+     * @param tableName The name of the table
+     * @param operation The {@link xyz.joestr.dbwrapper.DatabaseOperation}
+     * @param exception The {@link java.lang.Exception}
+     */
+    public default void operationFailed(String tableName, DatabaseOperation operation, Exception exception) {
+    }
+}
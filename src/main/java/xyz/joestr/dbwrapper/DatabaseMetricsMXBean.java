@@ -0,0 +1,47 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link xyz.joestr.dbwrapper.DatabaseMetrics}. All
+ * durations are in nanoseconds.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public interface DatabaseMetricsMXBean {
+
+    /**
+     * Returns the durations of acquiring connections.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.LatencyHistogram.Snapshot}
+     */
+    public LatencyHistogram.Snapshot getConnectionAcquireTime();
+
+    /**
+     * Returns the durations of preparing statements.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.LatencyHistogram.Snapshot}
+     */
+    public LatencyHistogram.Snapshot getStatementPrepareTime();
+
+    /**
+     * Returns the statistics of every table and operation seen so far.
+     *
+     * @return A {@link java.util.List} of
+     * {@link xyz.joestr.dbwrapper.DatabaseMetrics.OperationStatistics}
+     */
+    public List<DatabaseMetrics.OperationStatistics> getOperations();
+
+    /**
+     * Returns the number of failed operations over all tables.
+     *
+     * @return A {@code long}
+     */
+    public long getErrorCount();
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset();
+}
@@ -0,0 +1,32 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * The kind of statement a wrapper runs, as reported to a
+ * {@link xyz.joestr.dbwrapper.DatabaseMetricsListener}.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public enum DatabaseOperation {
+
+    /**
+     * Reads rows, including counts and aggregates.
+     */
+    SELECT,
+    /**
+     * Inserts rows.
+     */
+    INSERT,
+    /**
+     * Updates rows.
+     */
+    UPDATE,
+    /**
+     * Deletes rows.
+     */
+    DELETE,
+    /**
+     * Inserts or updates rows.
+     */
+    UPSERT
+}
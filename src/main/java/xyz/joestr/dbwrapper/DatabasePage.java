@@ -0,0 +1,59 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.List;
+
+/**
+ * A page of entries read with keyset pagination. The key of the last entry
+ * continues with the next page.
+ * <pre>
+ * DatabasePage&lt;Event&gt; page = wrapper.page(null, 500);
+ *
+ * while (page.hasNext()) {
+ *     page = wrapper.page(page.getContinuationKey(), 500);
+ * }
+ * </pre>
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class DatabasePage<T> {
+
+    private final List<T> content;
+    private final List<Object> continuationKey;
+
+    DatabasePage(List<T> content, List<Object> continuationKey) {
+        this.content = content;
+        this.continuationKey = continuationKey;
+    }
+
+    /**
+     * Returns the entries of this page in key order.
+     *
+     * @return A {@link java.util.List} of {@link java.lang.reflect.Type}
+     */
+    public List<T> getContent() {
+        return this.content;
+    }
+
+    /**
+     * Returns the primary key values of the last entry, which are passed as
+     * {@code afterKey} to read the next page.
+     *
+     * @return An unmodifiable {@link java.util.List} or {@code null} if this
+     * is the last page
+     */
+    public List<Object> getContinuationKey() {
+        return this.continuationKey;
+    }
+
+    /**
+     * Returns {@code true} if there is a page after this one. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean hasNext() {
+        return this.continuationKey != null;
+    }
+}
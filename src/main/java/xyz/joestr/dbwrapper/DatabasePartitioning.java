@@ -0,0 +1,25 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * Describes how a parallel scan splits a table into partitions. Both
+ * strategies partition on the first primary key column, which must be of an
+ * integral type.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public enum DatabasePartitioning {
+
+    /**
+     * Splits the range between the smallest and the largest key into ranges
+     * of equal width. Each partition reads a contiguous part of the key index,
+     * but gaps in the keys lead to partitions of uneven size.
+     */
+    RANGE,
+    /**
+     * Assigns every row to the partition {@code ABS(MOD(key, partitions))}.
+     * The partitions are even for densely assigned keys, but every partition
+     * reads the whole key index.
+     */
+    MODULO
+}
@@ -0,0 +1,312 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs statements which take longer than a threshold, with their SQL, bind
+ * values, elapsed time, row count and the class they were run for. A share
+ * of the faster statements can be logged, too.
+ * <p>
+ * The entries are written to the {@link java.util.logging.Logger}
+ * {@code xyz.joestr.dbwrapper.DatabaseSlowQueryLog} by a background thread,
+ * slow statements at {@link java.util.logging.Level#WARNING} and sampled ones
+ * at {@link java.util.logging.Level#INFO}. If the thread falls behind, new
+ * entries are dropped instead of slowing the statements down.
+ * <pre>
+ * DatabaseSlowQueryLog slowQueryLog = new DatabaseSlowQueryLog(250, TimeUnit.MILLISECONDS);
+ *
+ * slowQueryLog.setRedactParameters(true);
+ * handler.setSlowQueryLog(slowQueryLog);
+ * </pre>
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class DatabaseSlowQueryLog implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseSlowQueryLog.class.getName());
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final BlockingQueue<Entry> entries = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final LongAdder loggedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final Thread logThread;
+    private volatile long thresholdNanos;
+    private volatile double sampleRate = 0;
+    private volatile boolean redactParameters = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.DatabaseSlowQueryLog} and starts its
+     * background thread.
+     *
+     * @param threshold The duration from which on a statement is slow
+     * @param unit The {@link java.util.concurrent.TimeUnit} of
+     * {@code threshold}
+     * @throws IllegalArgumentException If {@code threshold} is negative
+     */
+    public DatabaseSlowQueryLog(long threshold, TimeUnit unit) {
+
+        this.setThreshold(threshold, unit);
+
+        this.logThread = new Thread(this::runLogLoop, "DBWrapper-slow-query-log-" + THREAD_NUMBER.incrementAndGet());
+        this.logThread.setDaemon(true);
+        this.logThread.start();
+    }
+
+    /**
+     * Records a finished statement. It is logged if it was slow or sampled.
+     *
+     * @param caller The class the statement was run for, usually the wrapped
+     * class
+     * @param sql The SQL text
+     * @param parameters Supplies the bind values; only asked if the
+     * statement is logged and the values are not redacted. May supply
+     * {@code null} if the values are not known, e.g. for batches.
+     * @param elapsedNanos The duration of the statement
+     * @param rowCount The number of read or written rows
+     */
+    public void record(Class<?> caller, String sql, Supplier<? extends List<?>> parameters, long elapsedNanos, long rowCount) {
+
+        boolean slow = elapsedNanos >= this.thresholdNanos;
+
+        if (!slow) {
+
+            double sampleRate_ = this.sampleRate;
+
+            if (sampleRate_ <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate_) {
+                return;
+            }
+        }
+
+        List<?> parameters_ = null;
+        int parameterCount = -1;
+
+        if (parameters != null) {
+
+            List<?> supplied = parameters.get();
+
+            if (supplied != null) {
+
+                parameterCount = supplied.size();
+
+                // Copied, as the values may change until the entry is written
+                if (!this.redactParameters) {
+                    parameters_ = new ArrayList<>(supplied);
+                }
+            }
+        }
+
+        Entry entry = new Entry(slow, caller, sql, parameters_, parameterCount, elapsedNanos, rowCount);
+
+        if (this.closed || !this.entries.offer(entry)) {
+            this.droppedCount.increment();
+        }
+    }
+
+    /**
+     * Stops the background thread after it wrote the queued entries.
+     */
+    @Override
+    public void close() {
+
+        this.closed = true;
+        this.logThread.interrupt();
+
+        try {
+            this.logThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the threshold.
+     *
+     * @param unit The {@link java.util.concurrent.TimeUnit} of the result
+     * @return A {@code long}
+     */
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(this.thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the duration from which on a statement is slow.
+     *
+     * @param threshold The threshold
+     * @param unit The {@link java.util.concurrent.TimeUnit} of
+     * {@code threshold}
+     * @throws IllegalArgumentException If {@code threshold} is negative
+     */
+    public void setThreshold(long threshold, TimeUnit unit) {
+
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold can not be negative!");
+        }
+
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    /**
+     * Returns the {@code sampleRate}.
+     *
+     * @return A {@code double}
+     */
+    public double getSampleRate() {
+        return this.sampleRate;
+    }
+
+    /**
+     * Sets the share of the statements below the threshold which are logged,
+     * too.
+     *
+     * @param sampleRate A value between {@code 0} (none, the default) and
+     * {@code 1} (all)
+     * @throws IllegalArgumentException If {@code sampleRate} is out of range
+     */
+    public void setSampleRate(double sampleRate) {
+
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1!");
+        }
+
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Returns the {@code redactParameters}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isRedactParameters() {
+        return this.redactParameters;
+    }
+
+    /**
+     * Sets if only the number of bind values is logged instead of the values,
+     * which may contain personal data.
+     *
+     * @param redactParameters {@code true} to redact the bind values
+     */
+    public void setRedactParameters(boolean redactParameters) {
+        this.redactParameters = redactParameters;
+    }
+
+    /**
+     * Returns the number of written entries.
+     *
+     * @return A {@code long}
+     */
+    public long getLoggedCount() {
+        return this.loggedCount.sum();
+    }
+
+    /**
+     * Returns the number of entries which were dropped as the queue was full
+     * or the log closed.
+     *
+     * @return A {@code long}
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    private void runLogLoop() {
+
+        while (true) {
+
+            Entry entry;
+
+            try {
+                entry = this.closed ? this.entries.poll() : this.entries.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            if (entry == null) {
+                return;
+            }
+
+            try {
+                LOGGER.log(entry.slow ? Level.WARNING : Level.INFO, entry.format());
+            } catch (RuntimeException e) {
+                // A broken handler must not stop the log
+            }
+
+            this.loggedCount.increment();
+        }
+    }
+
+    /**
+     * A recorded statement.
+     */
+    private static final class Entry {
+
+        private final boolean slow;
+        private final Class<?> caller;
+        private final String sql;
+        private final List<?> parameters;
+        private final int parameterCount;
+        private final long elapsedNanos;
+        private final long rowCount;
+
+        private Entry(boolean slow, Class<?> caller, String sql, List<?> parameters, int parameterCount, long elapsedNanos, long rowCount) {
+            this.slow = slow;
+            this.caller = caller;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.parameterCount = parameterCount;
+            this.elapsedNanos = elapsedNanos;
+            this.rowCount = rowCount;
+        }
+
+        private String format() {
+
+            StringBuilder stringBuilder = new StringBuilder(this.slow ? "Slow query" : "Sampled query")
+                .append(String.format(Locale.ROOT, " (%.3f ms, %d rows)", this.elapsedNanos / 1_000_000d, this.rowCount))
+                .append(" for ").append(this.caller == null ? "unknown" : this.caller.getName())
+                .append(": ").append(this.sql);
+
+            if (this.parameters != null) {
+
+                stringBuilder.append(" [");
+
+                for (int i = 0; i < this.parameters.size(); i++) {
+
+                    Object parameter = this.parameters.get(i);
+
+                    if (i > 0) {
+                        stringBuilder.append(", ");
+                    }
+
+                    if (parameter instanceof byte[]) {
+                        stringBuilder.append("<").append(((byte[]) parameter).length).append(" bytes>");
+                    } else if (parameter instanceof CharSequence) {
+                        stringBuilder.append("'").append(parameter).append("'");
+                    } else {
+                        stringBuilder.append(parameter);
+                    }
+                }
+
+                stringBuilder.append("]");
+            } else if (this.parameterCount >= 0) {
+                stringBuilder.append(" [").append(this.parameterCount).append(" parameters redacted]");
+            }
+
+            return stringBuilder.toString();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * Work on the database which runs asynchronously with
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#executeAsync(xyz.joestr.dbwrapper.DatabaseTask)}.
+ *
+ * @param <R> The result
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+@FunctionalInterface
+public interface DatabaseTask<R> {
+
+    /**
+     * Does the work.
+     *
+     * @return The result
+     * @throws Exception If the work fails
+     */
+    public R execute() throws Exception;
+}
@@ -0,0 +1,181 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A transaction which is bound to the thread running
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#inTransaction(xyz.joestr.dbwrapper.TransactionCallback)}.
+ * It is committed once when the callback returns and rolled back if the
+ * callback fails or {@link #setRollbackOnly()} was called.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class DatabaseTransaction {
+
+    private final Connection connection;
+    private final int isolationLevel;
+    private final List<Runnable> rollbackActions = new ArrayList<>();
+    private final Map<Object, Runnable> completionActions = new LinkedHashMap<>();
+    private final Map<Savepoint, Integer> savepoints = new IdentityHashMap<>();
+    private boolean rollbackOnly = false;
+
+    DatabaseTransaction(Connection connection, int isolationLevel) {
+
+        this.connection = connection;
+        this.isolationLevel = isolationLevel;
+    }
+
+    /**
+     * Sets an unnamed savepoint.
+     *
+     * @return The {@link java.sql.Savepoint}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Savepoint setSavepoint() throws SQLException {
+
+        return this.remember(this.connection.setSavepoint());
+    }
+
+    /**
+     * Sets a named savepoint.
+     *
+     * @param name The name of the savepoint
+     * @return The {@link java.sql.Savepoint}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public Savepoint setSavepoint(String name) throws SQLException {
+
+        return this.remember(this.connection.setSavepoint(name));
+    }
+
+    /**
+     * Undoes all changes after a savepoint. The transaction stays open.
+     *
+     * @param savepoint The {@link java.sql.Savepoint}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void rollback(Savepoint savepoint) throws SQLException {
+
+        this.connection.rollback(savepoint);
+
+        Integer actionCount = this.savepoints.get(savepoint);
+
+        if (actionCount != null) {
+            this.runRollbackActions(actionCount);
+        }
+    }
+
+    /**
+     * Releases a savepoint.
+     *
+     * @param savepoint The {@link java.sql.Savepoint}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+
+        this.connection.releaseSavepoint(savepoint);
+        this.savepoints.remove(savepoint);
+    }
+
+    /**
+     * Marks the transaction to be rolled back instead of committed.
+     */
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    /**
+     * Returns {@code true} if the transaction will be rolled back. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isRollbackOnly() {
+        return this.rollbackOnly;
+    }
+
+    /**
+     * Returns the isolation level.
+     *
+     * @return One of the {@code TRANSACTION_} constants of
+     * {@link java.sql.Connection}
+     */
+    public int getIsolationLevel() {
+        return this.isolationLevel;
+    }
+
+    /**
+     * Returns the connection of the transaction.
+     *
+     * @return The {@link java.sql.Connection}
+     */
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Registers an action which undoes a change of a cache if the change is
+     * rolled back.
+     */
+    void onRollback(Runnable action) {
+        this.rollbackActions.add(action);
+    }
+
+    /**
+     * Registers an action which runs once after commit or rollback. An action
+     * with an already registered key is ignored.
+     */
+    void onCompletion(Object key, Runnable action) {
+        this.completionActions.putIfAbsent(key, action);
+    }
+
+    void commit() throws SQLException {
+
+        this.connection.commit();
+
+        this.rollbackActions.clear();
+        this.complete();
+    }
+
+    void rollback() throws SQLException {
+
+        try {
+            this.connection.rollback();
+        } finally {
+            this.runRollbackActions(0);
+            this.complete();
+        }
+    }
+
+    private Savepoint remember(Savepoint savepoint) {
+
+        this.savepoints.put(savepoint, this.rollbackActions.size());
+
+        return savepoint;
+    }
+
+    /**
+     * Runs the rollback actions registered after the first {@code from}
+     * ones, newest first.
+     */
+    private void runRollbackActions(int from) {
+
+        for (int i = this.rollbackActions.size() - 1; i >= from; i--) {
+            this.rollbackActions.remove(i).run();
+        }
+    }
+
+    private void complete() {
+
+        this.completionActions.values().forEach(Runnable::run);
+        this.completionActions.clear();
+    }
+}
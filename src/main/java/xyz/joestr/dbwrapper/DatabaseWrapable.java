@@ -6,6 +6,7 @@
 package xyz.joestr.dbwrapper;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Classes which implement this interface can be used by the
@@ -38,4 +39,16 @@ public interface DatabaseWrapable {
      * of the fields in the implementing class
      */
     public Collection<String> classFieldNames();
+
+    /**
+     * Defines the name of the primary key columns in the database. Updates
+     * and deletes then match on these columns only. By default there is no
+     * primary key and all columns are matched.
+     *
+     * @return {@link java.util.Collection}&lt;{@link java.lang.String}&gt; Name
+     * of the primary key columns in the database
+     */
+    public default Collection<String> databaseKeyColumnNames() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,418 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queues inserts and updates of a wrapper and writes them later in batches.
+ * A background thread flushes the queue whenever it holds
+ * {@code batchSize} entries or the oldest entry waited for the flush
+ * interval. Every batch runs in one transaction.
+ * <p>
+ * Updates of an object whose key is still queued replace the queued update
+ * instead of taking another slot. If the queue is full, the writing thread
+ * waits until a flush made room. Closing the buffer flushes what is left;
+ * an object queued while the buffer closes is flushed by the queuing thread.
+ * <pre>
+ * try (DatabaseWriteBehindBuffer&lt;Event&gt; buffer =
+ *         new DatabaseWriteBehindBuffer&lt;&gt;(wrapper, 10000, 500, 1, TimeUnit.SECONDS)) {
+ *
+ *     buffer.insert(event);
+ * }
+ * </pre>
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class DatabaseWriteBehindBuffer<T> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseWriteBehindBuffer.class.getName());
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final AbstractDatabaseWrapper<T> wrapper;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Queue<Entry<T>> entries = new ConcurrentLinkedQueue<>();
+    private final Map<List<Object>, T> pendingUpdates = new ConcurrentHashMap<>();
+    private final Semaphore freeSlots;
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final Thread flushThread;
+    private volatile boolean closed = false;
+    private volatile long lastFlushNanos = 0;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.DatabaseWriteBehindBuffer} and starts its
+     * background thread.
+     *
+     * @param wrapper The wrapper which writes the objects
+     * @param capacity The maximum number of queued objects
+     * @param batchSize The number of objects which triggers a flush and the
+     * maximum number of objects per transaction
+     * @param flushInterval The maximum time an object waits for a flush
+     * @param unit The {@link java.util.concurrent.TimeUnit} of
+     * {@code flushInterval}
+     * @throws IllegalArgumentException If {@code capacity},
+     * {@code batchSize} or {@code flushInterval} is less than 1
+     */
+    public DatabaseWriteBehindBuffer(AbstractDatabaseWrapper<T> wrapper, int capacity, int batchSize, long flushInterval, TimeUnit unit) {
+
+        if (wrapper == null) {
+            throw new NullPointerException("wrapper can not be null!");
+        }
+
+        if (capacity < 1 || batchSize < 1 || flushInterval < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and flushInterval must be at least 1!");
+        }
+
+        this.wrapper = wrapper;
+        this.capacity = capacity;
+        this.batchSize = Math.min(batchSize, capacity);
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+        this.freeSlots = new Semaphore(capacity);
+
+        this.flushThread = new Thread(this::runFlushLoop, "DBWrapper-write-behind-" + THREAD_NUMBER.incrementAndGet());
+        this.flushThread.setDaemon(true);
+        this.flushThread.start();
+    }
+
+    /**
+     * Queues an insert. Waits while the queue is full.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @throws IllegalStateException If the buffer is closed
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void insert(T object) throws InterruptedException {
+
+        if (object == null) {
+            throw new NullPointerException("object can not be null!");
+        }
+
+        this.acquireSlot();
+        this.enqueue(new Entry<>(object, null));
+    }
+
+    /**
+     * Queues an update by primary key. If an update of the same key is still
+     * queued, it is replaced and no further slot is taken. Waits while the
+     * queue is full.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @throws IllegalStateException If the buffer is closed or the wrapped
+     * class has no primary key
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void update(T object) throws InterruptedException {
+
+        if (object == null) {
+            throw new NullPointerException("object can not be null!");
+        }
+
+        if (!this.wrapper.hasPrimaryKey()) {
+            throw new IllegalStateException(this.wrapper.getWrappedClass().getName() + " has no primary key!");
+        }
+
+        if (this.closed) {
+            throw new IllegalStateException("The buffer is closed!");
+        }
+
+        List<Object> key = this.wrapper.keyOf(object);
+
+        // Cheap path without waiting for a slot
+        if (this.pendingUpdates.computeIfPresent(key, (k, queued) -> object) != null) {
+            this.coalescedCount.increment();
+            return;
+        }
+
+        this.acquireSlot();
+
+        if (this.pendingUpdates.put(key, object) != null) {
+
+            this.freeSlots.release();
+            this.coalescedCount.increment();
+            return;
+        }
+
+        this.enqueue(new Entry<>(null, key));
+    }
+
+    /**
+     * Writes all queued objects on the calling thread.
+     *
+     * @throws SQLException If something SQL relevant fails; the failed batch
+     * is dropped
+     */
+    public void flush() throws SQLException {
+
+        this.flushLock.lock();
+
+        try {
+            while (!this.entries.isEmpty()) {
+                this.flushBatch();
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background thread and writes all queued objects.
+     *
+     * @throws SQLException If something SQL relevant fails
+     */
+    @Override
+    public void close() throws SQLException {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        LockSupport.unpark(this.flushThread);
+
+        try {
+            this.flushThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        this.flush();
+    }
+
+    /**
+     * Returns the number of queued objects.
+     *
+     * @return An {@code int}
+     */
+    public int getQueuedCount() {
+        return this.queuedCount.get();
+    }
+
+    /**
+     * Returns the maximum number of queued objects.
+     *
+     * @return An {@code int}
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of written objects.
+     *
+     * @return A {@code long}
+     */
+    public long getWrittenCount() {
+        return this.writtenCount.sum();
+    }
+
+    /**
+     * Returns the number of objects which were dropped as their batch failed.
+     *
+     * @return A {@code long}
+     */
+    public long getFailedCount() {
+        return this.failedCount.sum();
+    }
+
+    /**
+     * Returns the number of updates which replaced a queued update.
+     *
+     * @return A {@code long}
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.sum();
+    }
+
+    /**
+     * Returns how long the oldest queued object waits already.
+     *
+     * @param unit The {@link java.util.concurrent.TimeUnit} of the result
+     * @return A {@code long}; {@code 0} if the queue is empty
+     */
+    public long getLag(TimeUnit unit) {
+
+        Entry<T> oldest = this.entries.peek();
+
+        return oldest == null ? 0 : unit.convert(System.nanoTime() - oldest.enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how long the last flush of a batch took.
+     *
+     * @param unit The {@link java.util.concurrent.TimeUnit} of the result
+     * @return A {@code long}
+     */
+    public long getLastFlushDuration(TimeUnit unit) {
+        return unit.convert(this.lastFlushNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void acquireSlot() throws InterruptedException {
+
+        if (this.closed) {
+            throw new IllegalStateException("The buffer is closed!");
+        }
+
+        this.freeSlots.acquire();
+    }
+
+    private void enqueue(Entry<T> entry) {
+
+        this.entries.add(entry);
+
+        int queued = this.queuedCount.incrementAndGet();
+
+        // The first entry starts the flush interval
+        if (queued == 1 || queued >= this.batchSize) {
+            LockSupport.unpark(this.flushThread);
+        }
+
+        // The final flush of close() may have missed the entry
+        if (this.closed) {
+
+            try {
+                this.flush();
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to flush the write-behind buffer", e);
+            }
+        }
+    }
+
+    private void runFlushLoop() {
+
+        while (!this.closed) {
+
+            Entry<T> oldest = this.entries.peek();
+
+            if (this.queuedCount.get() < this.batchSize) {
+
+                long waitNanos = oldest == null
+                    ? this.flushIntervalNanos
+                    : oldest.enqueuedAt + this.flushIntervalNanos - System.nanoTime();
+
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(this, waitNanos);
+                    continue;
+                }
+            }
+
+            if (this.entries.isEmpty()) {
+                continue;
+            }
+
+            this.flushLock.lock();
+
+            try {
+                this.flushBatch();
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to flush the write-behind buffer", e);
+            } finally {
+                this.flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes up to {@code batchSize} queued objects in one transaction.
+     * Consecutive inserts and updates are written in bulk, so the order of
+     * the operations is kept.
+     */
+    private void flushBatch() throws SQLException {
+
+        List<Entry<T>> batch = new ArrayList<>(this.batchSize);
+        Entry<T> entry;
+
+        while (batch.size() < this.batchSize && (entry = this.entries.poll()) != null) {
+            batch.add(entry);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Take the latest state of every update; later updates queue again
+        List<T> objects = new ArrayList<>(batch.size());
+
+        for (Entry<T> entry_ : batch) {
+            objects.add(entry_.object != null ? entry_.object : this.pendingUpdates.remove(entry_.key));
+        }
+
+        this.queuedCount.addAndGet(-batch.size());
+        this.freeSlots.release(batch.size());
+
+        long start = System.nanoTime();
+
+        try {
+            this.wrapper.getDatabaseConnectionHandler().inTransaction(transaction -> {
+
+                int from = 0;
+
+                while (from < batch.size()) {
+
+                    boolean insert = batch.get(from).object != null;
+                    int to = from + 1;
+
+                    while (to < batch.size() && (batch.get(to).object != null) == insert) {
+                        to++;
+                    }
+
+                    List<T> run = objects.subList(from, to);
+
+                    if (insert) {
+                        this.wrapper.insertAll(run);
+                    } else {
+                        this.wrapper.updateAll(run);
+                    }
+
+                    from = to;
+                }
+
+                return null;
+            });
+
+            this.writtenCount.add(batch.size());
+        } catch (SQLException | RuntimeException e) {
+
+            this.failedCount.add(batch.size());
+            throw e;
+        } finally {
+            this.lastFlushNanos = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * A queued insert of an object or update of a key.
+     */
+    private static final class Entry<T> {
+
+        private final T object;
+        private final List<Object> key;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Entry(T object, List<Object> key) {
+            this.object = object;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads and writes all mapped fields of a class at once. Implementations are
+ * generated at runtime by {@link xyz.joestr.dbwrapper.EntityAccessorGenerator}.
+ *
+ * @param <T> The mapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public interface EntityAccessor<T> {
+
+    /**
+     * Creates a new instance with the no-argument constructor.
+     *
+     * @return A new instance of {@link java.lang.reflect.Type}
+     */
+    public T newInstance();
+
+    /**
+     * Writes the columns {@code 1} to {@code n} of the current row into the
+     * mapped fields.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @param resultSet The {@link java.sql.ResultSet}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void hydrate(T object, ResultSet resultSet) throws SQLException;
+
+    /**
+     * Binds the mapped fields to the parameters {@code offset + 1} to
+     * {@code offset + n}.
+     *
+     * @param preparedStatement The {@link java.sql.PreparedStatement}
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @param offset The number of parameters before the first bound one
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void bind(PreparedStatement preparedStatement, T object, int offset) throws SQLException;
+}
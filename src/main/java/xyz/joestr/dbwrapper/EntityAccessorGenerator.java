@@ -0,0 +1,596 @@
+package xyz.joestr.dbwrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates an {@link xyz.joestr.dbwrapper.EntityAccessor} class per mapped
+ * class at runtime.
+ * <p>
+ * The generated class is defined as a hidden nestmate of the mapped class, so
+ * it reads and writes the fields with plain {@code getfield} and
+ * {@code putfield} instructions and uses the typed {@link java.sql.ResultSet}
+ * getters and {@link java.sql.PreparedStatement} setters for primitive
+ * fields. Hidden classes require Java 15 or newer. If the runtime does not
+ * support them, the mapped class is not accessible or a field is
+ * {@code static}, {@code final} or a {@code char}, no accessor is generated
+ * and the {@link xyz.joestr.dbwrapper.EntityMapper} keeps using method handles.
+ * <p>
+ * The generation is disabled by default. It can be enabled with
+ * {@link #setEnabled(boolean)} or the system property
+ * {@code xyz.joestr.dbwrapper.generateAccessors}.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class EntityAccessorGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(EntityAccessorGenerator.class.getName());
+
+    private static volatile boolean enabled = Boolean.getBoolean("xyz.joestr.dbwrapper.generateAccessors");
+
+    private EntityAccessorGenerator() {
+    }
+
+    /**
+     * Returns {@code true} if new {@link xyz.joestr.dbwrapper.EntityMapper}s
+     * try to generate an accessor. Else {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the flag, if new {@link xyz.joestr.dbwrapper.EntityMapper}s try to
+     * generate an accessor.
+     *
+     * @param enabled If accessors should be generated
+     */
+    public static void setEnabled(boolean enabled) {
+        EntityAccessorGenerator.enabled = enabled;
+    }
+
+    /**
+     * Generates an accessor for the given fields.
+     *
+     * @param <T> The mapped class
+     * @param clazz The {@link java.lang.Class}
+     * @param fieldNames The names of the mapped fields in column order
+     * @return The {@link xyz.joestr.dbwrapper.EntityAccessor} or {@code null}
+     * if no accessor can be generated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityAccessor<T> generate(Class<T> clazz, List<String> fieldNames) {
+
+        try {
+            List<Field> fields = new ArrayList<>();
+
+            for (String fieldName : fieldNames) {
+
+                Field field_ = clazz.getDeclaredField(fieldName);
+
+                if (Modifier.isStatic(field_.getModifiers())
+                    || Modifier.isFinal(field_.getModifiers())
+                    || field_.getType() == char.class) {
+
+                    LOGGER.log(Level.FINE, "No accessor for {0}: field {1} is not supported", new Object[]{clazz.getName(), fieldName});
+                    return null;
+                }
+
+                fields.add(field_);
+            }
+
+            clazz.getDeclaredConstructor();
+
+            byte[] classFile = new AccessorClassWriter(clazz, fields).toByteArray();
+
+            Method privateLookupIn = MethodHandles.class.getMethod(
+                "privateLookupIn", Class.class, MethodHandles.Lookup.class
+            );
+            MethodHandles.Lookup lookup
+                = (MethodHandles.Lookup) privateLookupIn.invoke(null, clazz, MethodHandles.lookup());
+
+            @SuppressWarnings("rawtypes")
+            Class optionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Object options = Array.newInstance(optionClass, 1);
+            Array.set(options, 0, Enum.valueOf(optionClass, "NESTMATE"));
+
+            Method defineHiddenClass = MethodHandles.Lookup.class.getMethod(
+                "defineHiddenClass", byte[].class, boolean.class, options.getClass()
+            );
+            MethodHandles.Lookup hiddenLookup
+                = (MethodHandles.Lookup) defineHiddenClass.invoke(lookup, classFile, true, options);
+
+            return (EntityAccessor<T>) hiddenLookup
+                .findConstructor(hiddenLookup.lookupClass(), MethodType.methodType(void.class))
+                .invoke();
+        } catch (Throwable t) {
+
+            if (t instanceof VirtualMachineError) {
+                throw (VirtualMachineError) t;
+            }
+
+            LOGGER.log(Level.FINE, "No accessor for " + clazz.getName() + ", falling back to method handles", t);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the class file of an accessor.
+     */
+    private static final class AccessorClassWriter {
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private static final String RESULT_SET = "java/sql/ResultSet";
+        private static final String PREPARED_STATEMENT = "java/sql/PreparedStatement";
+
+        private final ConstantPool constantPool = new ConstantPool();
+        private final List<byte[]> methods = new ArrayList<>();
+        private final String entityName;
+        private final String accessorName;
+        private final List<Field> fields;
+
+        private AccessorClassWriter(Class<?> clazz, List<Field> fields) {
+
+            this.entityName = clazz.getName().replace('.', '/');
+            this.accessorName = this.entityName + "$$DBWrapperAccessor";
+            this.fields = fields;
+        }
+
+        private byte[] toByteArray() {
+
+            int thisClass = this.constantPool.clazz(this.accessorName);
+            int superClass = this.constantPool.clazz("java/lang/Object");
+            int accessorInterface = this.constantPool.clazz("xyz/joestr/dbwrapper/EntityAccessor");
+
+            this.writeConstructor(superClass);
+            this.writeNewInstance();
+            this.writeHydrate(thisClass);
+            this.writeBind();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(this.constantPool.count);
+                this.constantPool.bytes.writeTo(out);
+                out.writeShort(ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(accessorInterface);
+                out.writeShort(0);
+                out.writeShort(this.methods.size());
+
+                for (byte[] method : this.methods) {
+                    out.write(method);
+                }
+
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return bytes.toByteArray();
+        }
+
+        private void writeConstructor(int superClass) {
+
+            Code code = new Code();
+
+            code.op(0x2a); // aload_0
+            code.op(0xb7).u2(this.constantPool.method("java/lang/Object", "<init>", "()V")); // invokespecial
+            code.op(0xb1); // return
+
+            this.method("<init>", "()V", code, 1, 1);
+        }
+
+        private void writeNewInstance() {
+
+            Code code = new Code();
+
+            code.op(0xbb).u2(this.constantPool.clazz(this.entityName)); // new
+            code.op(0x59); // dup
+            code.op(0xb7).u2(this.constantPool.method(this.entityName, "<init>", "()V")); // invokespecial
+            code.op(0xb0); // areturn
+
+            this.method("newInstance", "()Ljava/lang/Object;", code, 2, 1);
+        }
+
+        private void writeHydrate(int thisClass) {
+
+            Code code = new Code();
+
+            int entityClass = this.constantPool.clazz(this.entityName);
+            int[] frameLocals = {
+                thisClass,
+                this.constantPool.clazz("java/lang/Object"),
+                this.constantPool.clazz(RESULT_SET),
+                entityClass
+            };
+
+            code.op(0x2b); // aload_1
+            code.op(0xc0).u2(entityClass); // checkcast
+            code.op(0x4e); // astore_3
+
+            for (int i = 0; i < this.fields.size(); i++) {
+
+                Field field_ = this.fields.get(i);
+                Class<?> type = field_.getType();
+                int fieldRef = this.constantPool.field(this.entityName, field_.getName(), descriptor(type));
+
+                if (type.isPrimitive()) {
+
+                    String suffix = jdbcSuffix(type);
+                    String typeDescriptor = descriptor(type);
+
+                    code.op(0x2c); // aload_2
+                    code.op(0x11).u2(i + 1); // sipush
+                    code.op(0xb9).u2(this.constantPool.interfaceMethod(RESULT_SET, "get" + suffix, "(I)" + typeDescriptor)).u1(2).u1(0);
+                    code.op(storeOpcode(type)).u1(4);
+                    code.op(0x2c); // aload_2
+                    code.op(0xb9).u2(this.constantPool.interfaceMethod(RESULT_SET, "wasNull", "()Z")).u1(1).u1(0);
+                    // A primitive field keeps its default value for NULL
+                    code.op(0x9a).u2(9); // ifne
+                    code.op(0x2d); // aload_3
+                    code.op(loadOpcode(type)).u1(4);
+                    code.op(0xb5).u2(fieldRef); // putfield
+                    code.frame(frameLocals);
+                } else {
+
+                    code.op(0x2d); // aload_3
+                    code.op(0x2c); // aload_2
+                    code.op(0x11).u2(i + 1); // sipush
+
+                    if (type == String.class) {
+
+                        code.op(0xb9).u2(this.constantPool.interfaceMethod(RESULT_SET, "getString", "(I)Ljava/lang/String;")).u1(2).u1(0);
+                    } else {
+
+                        code.op(0x13).u2(this.constantPool.clazz(classConstant(type))); // ldc_w
+                        code.op(0xb9).u2(this.constantPool.interfaceMethod(RESULT_SET, "getObject", "(ILjava/lang/Class;)Ljava/lang/Object;")).u1(3).u1(0);
+                        code.op(0xc0).u2(this.constantPool.clazz(classConstant(type))); // checkcast
+                    }
+
+                    code.op(0xb5).u2(fieldRef); // putfield
+                }
+            }
+
+            code.op(0xb1); // return
+
+            this.method("hydrate", "(Ljava/lang/Object;Ljava/sql/ResultSet;)V", code, 6, 6);
+        }
+
+        private void writeBind() {
+
+            Code code = new Code();
+
+            code.op(0x2c); // aload_2
+            code.op(0xc0).u2(this.constantPool.clazz(this.entityName)); // checkcast
+            code.op(0x3a).u1(4); // astore
+
+            for (int i = 0; i < this.fields.size(); i++) {
+
+                Field field_ = this.fields.get(i);
+                Class<?> type = field_.getType();
+
+                code.op(0x2b); // aload_1
+                code.op(0x1d); // iload_3
+                code.op(0x11).u2(i + 1); // sipush
+                code.op(0x60); // iadd
+                code.op(0x19).u1(4); // aload
+                code.op(0xb4).u2(this.constantPool.field(this.entityName, field_.getName(), descriptor(type))); // getfield
+
+                if (type.isPrimitive()) {
+
+                    int slots = type == long.class || type == double.class ? 2 : 1;
+
+                    code.op(0xb9).u2(this.constantPool.interfaceMethod(PREPARED_STATEMENT, "set" + jdbcSuffix(type), "(I" + descriptor(type) + ")V")).u1(2 + slots).u1(0);
+                } else {
+
+                    code.op(0xb9).u2(this.constantPool.interfaceMethod(PREPARED_STATEMENT, "setObject", "(ILjava/lang/Object;)V")).u1(3).u1(0);
+                }
+            }
+
+            code.op(0xb1); // return
+
+            this.method("bind", "(Ljava/sql/PreparedStatement;Ljava/lang/Object;I)V", code, 6, 5);
+        }
+
+        private void method(String name, String descriptor, Code code, int maxStack, int maxLocals) {
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+
+                byte[] instructions = code.instructions.toByteArray();
+                byte[] stackMapTable = code.frames.toByteArray();
+                boolean hasFrames = code.frameCount > 0;
+
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(this.constantPool.utf8(name));
+                out.writeShort(this.constantPool.utf8(descriptor));
+                out.writeShort(1);
+                out.writeShort(this.constantPool.utf8("Code"));
+                out.writeInt(12 + instructions.length + (hasFrames ? 8 + stackMapTable.length : 0));
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(instructions.length);
+                out.write(instructions);
+                out.writeShort(0);
+
+                if (hasFrames) {
+
+                    out.writeShort(1);
+                    out.writeShort(this.constantPool.utf8("StackMapTable"));
+                    out.writeInt(2 + stackMapTable.length);
+                    out.writeShort(code.frameCount);
+                    out.write(stackMapTable);
+                } else {
+
+                    out.writeShort(0);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            this.methods.add(bytes.toByteArray());
+        }
+
+        private static String descriptor(Class<?> type) {
+
+            if (type.isArray()) {
+                return type.getName().replace('.', '/');
+            }
+
+            if (!type.isPrimitive()) {
+                return "L" + type.getName().replace('.', '/') + ";";
+            }
+
+            if (type == int.class) {
+                return "I";
+            } else if (type == long.class) {
+                return "J";
+            } else if (type == boolean.class) {
+                return "Z";
+            } else if (type == double.class) {
+                return "D";
+            } else if (type == float.class) {
+                return "F";
+            } else if (type == short.class) {
+                return "S";
+            } else if (type == byte.class) {
+                return "B";
+            }
+
+            throw new IllegalArgumentException("Unsupported type " + type.getName());
+        }
+
+        private static String classConstant(Class<?> type) {
+
+            return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+        }
+
+        private static String jdbcSuffix(Class<?> type) {
+
+            String name = type.getName();
+
+            return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        private static int storeOpcode(Class<?> type) {
+
+            if (type == long.class) {
+                return 0x37; // lstore
+            } else if (type == float.class) {
+                return 0x38; // fstore
+            } else if (type == double.class) {
+                return 0x39; // dstore
+            }
+
+            return 0x36; // istore
+        }
+
+        private static int loadOpcode(Class<?> type) {
+
+            if (type == long.class) {
+                return 0x16; // lload
+            } else if (type == float.class) {
+                return 0x17; // fload
+            } else if (type == double.class) {
+                return 0x18; // dload
+            }
+
+            return 0x15; // iload
+        }
+    }
+
+    /**
+     * The bytecode and the stack map frames of one method.
+     */
+    private static final class Code {
+
+        private final ByteArrayOutputStream instructions = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        private int frameCount = 0;
+        private int lastFrameOffset = -1;
+
+        private Code op(int opcode) {
+            this.instructions.write(opcode);
+            return this;
+        }
+
+        private Code u1(int value) {
+            this.instructions.write(value);
+            return this;
+        }
+
+        private Code u2(int value) {
+            this.instructions.write(value >>> 8);
+            this.instructions.write(value);
+            return this;
+        }
+
+        /**
+         * Records a full frame with the given object locals and an empty
+         * stack at the current offset.
+         */
+        private void frame(int[] localClasses) {
+
+            int offset = this.instructions.size();
+            int offsetDelta = this.lastFrameOffset < 0 ? offset : offset - this.lastFrameOffset - 1;
+
+            this.frames.write(255);
+            this.frames.write(offsetDelta >>> 8);
+            this.frames.write(offsetDelta);
+            this.frames.write(localClasses.length >>> 8);
+            this.frames.write(localClasses.length);
+
+            for (int localClass : localClasses) {
+                this.frames.write(7);
+                this.frames.write(localClass >>> 8);
+                this.frames.write(localClass);
+            }
+
+            this.frames.write(0);
+            this.frames.write(0);
+
+            this.lastFrameOffset = offset;
+            this.frameCount++;
+        }
+    }
+
+    /**
+     * The constant pool of a class file.
+     */
+    private static final class ConstantPool {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+        private final Map<String, Integer> indices = new HashMap<>();
+        private int count = 1;
+
+        private int utf8(String value) {
+
+            Integer index = this.indices.get("U" + value);
+
+            if (index != null) {
+                return index;
+            }
+
+            try {
+                this.out.writeByte(1);
+                this.out.writeUTF(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return this.register("U" + value);
+        }
+
+        private int clazz(String internalName) {
+
+            Integer index = this.indices.get("C" + internalName);
+
+            if (index != null) {
+                return index;
+            }
+
+            int name = this.utf8(internalName);
+
+            this.write(7, name);
+
+            return this.register("C" + internalName);
+        }
+
+        private int nameAndType(String name, String descriptor) {
+
+            String key = "N" + name + ":" + descriptor;
+            Integer index = this.indices.get(key);
+
+            if (index != null) {
+                return index;
+            }
+
+            int nameIndex = this.utf8(name);
+            int descriptorIndex = this.utf8(descriptor);
+
+            this.write(12, nameIndex, descriptorIndex);
+
+            return this.register(key);
+        }
+
+        private int field(String owner, String name, String descriptor) {
+            return this.member(9, owner, name, descriptor);
+        }
+
+        private int method(String owner, String name, String descriptor) {
+            return this.member(10, owner, name, descriptor);
+        }
+
+        private int interfaceMethod(String owner, String name, String descriptor) {
+            return this.member(11, owner, name, descriptor);
+        }
+
+        private int member(int tag, String owner, String name, String descriptor) {
+
+            String key = tag + owner + "." + name + ":" + descriptor;
+            Integer index = this.indices.get(key);
+
+            if (index != null) {
+                return index;
+            }
+
+            int ownerIndex = this.clazz(owner);
+            int nameAndTypeIndex = this.nameAndType(name, descriptor);
+
+            this.write(tag, ownerIndex, nameAndTypeIndex);
+
+            return this.register(key);
+        }
+
+        private void write(int tag, int... values) {
+
+            try {
+                this.out.writeByte(tag);
+
+                for (int value : values) {
+                    this.out.writeShort(value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int register(String key) {
+
+            int index = this.count++;
+
+            this.indices.put(key, index);
+
+            return index;
+        }
+    }
+}
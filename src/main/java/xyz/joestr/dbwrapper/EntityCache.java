@@ -0,0 +1,415 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the column values of entities by their primary key. The cache is
+ * split into segments with their own lock, so threads working on different
+ * keys rarely wait for each other. Every segment evicts its least recently
+ * used entry when it is full, and entries expire after a time to live.
+ * <p>
+ * The cache holds values instead of objects: every hit hydrates a new
+ * object, so callers never share a mutable instance. A cache belongs to one
+ * wrapper and is set with
+ * {@link xyz.joestr.dbwrapper.AbstractDatabaseWrapper#setEntityCache(xyz.joestr.dbwrapper.EntityCache)}.
+ * Changes which bypass the wrapper are not seen until the entry expires or is
+ * invalidated.
+ * <p>
+ * Every key has a version, shared with the keys of the same stripe, which
+ * every write and invalidation raises. A row which was read before the
+ * version of its key was raised is not put, so a slow read can not bring
+ * back a row which was written in the meantime.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class EntityCache {
+
+    private static final int STRIPES_PER_SEGMENT = 64;
+
+    private final Segment[] segments;
+    private final long[] versions;
+    private final AtomicLong clock = new AtomicLong();
+    private final long timeToLiveNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new instance of the {@link xyz.joestr.dbwrapper.EntityCache}
+     * whose entries do not expire.
+     *
+     * @param maximumSize The maximum number of entries
+     * @throws IllegalArgumentException If {@code maximumSize} is less than 1
+     */
+    public EntityCache(int maximumSize) {
+
+        this(maximumSize, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance of the {@link xyz.joestr.dbwrapper.EntityCache}.
+     *
+     * @param maximumSize The maximum number of entries
+     * @param timeToLive The time after which an entry expires; {@code 0} for
+     * never
+     * @param unit The {@link java.util.concurrent.TimeUnit} of
+     * {@code timeToLive}
+     * @throws IllegalArgumentException If {@code maximumSize} is less than 1
+     * or {@code timeToLive} is negative
+     */
+    public EntityCache(int maximumSize, long timeToLive, TimeUnit unit) {
+
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1!");
+        }
+
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("timeToLive can not be negative!");
+        }
+
+        // Small caches get fewer segments to keep the bound tight
+        int segmentCount = Integer.highestOneBit(
+            Math.max(1, Math.min(maximumSize / 8, Runtime.getRuntime().availableProcessors() * 4))
+        );
+
+        this.segments = new Segment[segmentCount];
+
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment((maximumSize + segmentCount - 1 - i) / segmentCount);
+        }
+
+        // A stripe belongs to the segment selected by its lower bits
+        this.versions = new long[segmentCount * STRIPES_PER_SEGMENT];
+
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+    }
+
+    /**
+     * Removes the entry with the given primary key values.
+     *
+     * @param keyValues The values of the primary key columns
+     */
+    public void invalidate(Object... keyValues) {
+
+        this.remove(Arrays.asList(keyValues));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+
+        for (int i = 0; i < this.segments.length; i++) {
+
+            Segment segment = this.segments[i];
+
+            synchronized (segment) {
+
+                segment.clear();
+
+                for (int stripe = i; stripe < this.versions.length; stripe += this.segments.length) {
+                    this.versions[stripe] = this.clock.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries, including expired ones which were not
+     * looked up since.
+     *
+     * @return An {@code int}
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Segment segment : this.segments) {
+
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups which found an entry.
+     *
+     * @return A {@code long}
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which found no entry or an expired one.
+     *
+     * @return A {@code long}
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed to make room for new ones.
+     *
+     * @return A {@code long}
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the share of lookups which found an entry.
+     *
+     * @return A {@code double} between {@code 0} and {@code 1}
+     */
+    public double getHitRate() {
+
+        long hitCount = this.hits.sum();
+        long lookupCount = hitCount + this.misses.sum();
+
+        return lookupCount == 0 ? 0 : (double) hitCount / lookupCount;
+    }
+
+    /**
+     * Returns the values of the entry with the key or {@code null}.
+     */
+    Object[] get(List<Object> key) {
+
+        Segment segment = this.segmentOf(this.stripeOf(key));
+        CacheEntry entry;
+
+        synchronized (segment) {
+
+            entry = segment.get(key);
+
+            if (entry != null && entry.expiresAt != 0 && entry.expiresAt - System.nanoTime() <= 0) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+
+        return entry.values;
+    }
+
+    /**
+     * Returns the current version, which is read before rows are read.
+     */
+    long version() {
+        return this.clock.get();
+    }
+
+    /**
+     * Stores the values read under the key, unless the version of the key
+     * was raised since {@code version}.
+     */
+    void put(List<Object> key, Object[] values, long version) {
+
+        int stripe = this.stripeOf(key);
+        Segment segment = this.segmentOf(stripe);
+
+        synchronized (segment) {
+
+            if (this.versions[stripe] <= version) {
+                segment.put(key, this.entryOf(values));
+            }
+        }
+    }
+
+    /**
+     * Removes the entry with the key and raises its version.
+     */
+    void remove(List<Object> key) {
+
+        int stripe = this.stripeOf(key);
+        Segment segment = this.segmentOf(stripe);
+
+        synchronized (segment) {
+
+            segment.remove(key);
+            this.versions[stripe] = this.clock.incrementAndGet();
+        }
+    }
+
+    /**
+     * Starts a write of the rows with the keys. Their entries are removed
+     * and their versions raised until {@link Write#end()}.
+     */
+    Write beginWrite(Collection<List<Object>> keys) {
+
+        Write write = new Write();
+
+        for (List<Object> key : keys) {
+
+            int stripe = this.stripeOf(key);
+            Segment segment = this.segmentOf(stripe);
+
+            synchronized (segment) {
+
+                segment.remove(key);
+
+                if (!write.versions.containsKey(stripe)) {
+                    this.versions[stripe] = this.clock.incrementAndGet();
+                    write.versions.put(stripe, this.versions[stripe]);
+                }
+            }
+
+            write.keys.add(key);
+        }
+
+        return write;
+    }
+
+    private CacheEntry entryOf(Object[] values) {
+
+        long expiresAt = this.timeToLiveNanos == 0 ? 0 : System.nanoTime() + this.timeToLiveNanos;
+
+        // 0 marks entries without expiry
+        if (expiresAt == 0 && this.timeToLiveNanos != 0) {
+            expiresAt = 1;
+        }
+
+        return new CacheEntry(values, expiresAt);
+    }
+
+    private Segment segmentOf(int stripe) {
+        return this.segments[stripe & (this.segments.length - 1)];
+    }
+
+    private int stripeOf(Object key) {
+
+        int hash = key.hashCode();
+
+        // Spread the higher bits as only the lower ones select the segment
+        hash ^= hash >>> 16;
+
+        return hash & (this.versions.length - 1);
+    }
+
+    /**
+     * A write of some rows. The values of the rows which were written are
+     * put when the write ends, but only into stripes no other write touched
+     * in the meantime; all other entries of the rows are removed.
+     */
+    final class Write {
+
+        private final List<List<Object>> keys = new ArrayList<>();
+        private final Map<Integer, Long> versions = new HashMap<>();
+        private final Map<List<Object>, Object[]> values = new HashMap<>();
+
+        private Write() {
+        }
+
+        /**
+         * Stores the values of a row which was written once the write ends.
+         */
+        void put(List<Object> key, Object[] values) {
+            this.values.put(key, values);
+        }
+
+        /**
+         * Drops the values of all rows, for example after a rollback.
+         */
+        void discard() {
+            this.values.clear();
+        }
+
+        /**
+         * Ends the write. It must be called once, after the rows were
+         * committed or rolled back.
+         */
+        void end() {
+
+            Map<Integer, Long> endVersions = new HashMap<>();
+
+            for (List<Object> key : this.keys) {
+
+                int stripe = EntityCache.this.stripeOf(key);
+                Segment segment = EntityCache.this.segmentOf(stripe);
+
+                synchronized (segment) {
+
+                    segment.remove(key);
+
+                    if (!endVersions.containsKey(stripe)) {
+
+                        // Another write may have read or written the old row
+                        boolean alone = EntityCache.this.versions[stripe] == this.versions.get(stripe);
+
+                        EntityCache.this.versions[stripe] = EntityCache.this.clock.incrementAndGet();
+                        endVersions.put(stripe, alone ? EntityCache.this.versions[stripe] : -1);
+                    }
+
+                    Object[] values_ = this.values.get(key);
+
+                    if (values_ != null && EntityCache.this.versions[stripe] == endVersions.get(stripe)) {
+                        segment.put(key, EntityCache.this.entryOf(values_));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of one entity.
+     */
+    private static final class CacheEntry {
+
+        private final Object[] values;
+        private final long expiresAt;
+
+        private CacheEntry(Object[] values, long expiresAt) {
+            this.values = values;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * A part of the cache in access order, guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<List<Object>, CacheEntry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        private Segment(int maximumSize) {
+
+            super(16, 0.75f, true);
+
+            this.maximumSize = maximumSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, CacheEntry> eldest) {
+
+            if (this.size() <= this.maximumSize) {
+                return false;
+            }
+
+            EntityCache.this.evictions.increment();
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hydrates the rows of an open {@link java.sql.ResultSet} one at a time. The
+ * connection is held until the iterator is exhausted or closed, so an
+ * iterator should always be used in a try-with-resources statement.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class EntityIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final Connection connection;
+    private final PreparedStatement preparedStatement;
+    private final ResultSet resultSet;
+    private final EntityMapper<T> entityMapper;
+    private final Consumer<? super T> hydrationListener;
+    private boolean fetched = false;
+    private boolean hasRow = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityIterator}. The iterator takes over the
+     * connection, the statement and the result set and gives them back when it
+     * is closed.
+     *
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler} of the connection
+     * @param connection The acquired {@link java.sql.Connection}
+     * @param preparedStatement The executed {@link java.sql.PreparedStatement}
+     * @param resultSet The {@link java.sql.ResultSet}
+     * @param entityMapper The {@link xyz.joestr.dbwrapper.EntityMapper}
+     */
+    public EntityIterator(DatabaseConnectionHandler databaseConnectionHandler, Connection connection, PreparedStatement preparedStatement, ResultSet resultSet, EntityMapper<T> entityMapper) {
+
+        this(databaseConnectionHandler, connection, preparedStatement, resultSet, entityMapper, null);
+    }
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityIterator} which passes every hydrated
+     * object to a listener.
+     */
+    EntityIterator(DatabaseConnectionHandler databaseConnectionHandler, Connection connection, PreparedStatement preparedStatement, ResultSet resultSet, EntityMapper<T> entityMapper, Consumer<? super T> hydrationListener) {
+
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.connection = connection;
+        this.preparedStatement = preparedStatement;
+        this.resultSet = resultSet;
+        this.entityMapper = entityMapper;
+        this.hydrationListener = hydrationListener;
+    }
+
+    /**
+     * Returns {@code true} if there is another row. Closes the iterator after
+     * the last row.
+     *
+     * @return A {@code boolean}
+     * @throws UncheckedSQLException If something SQL relevant fails
+     */
+    @Override
+    public boolean hasNext() {
+
+        if (this.closed) {
+            return false;
+        }
+
+        if (!this.fetched) {
+
+            try {
+                this.hasRow = this.resultSet.next();
+            } catch (SQLException e) {
+                this.close();
+                throw new UncheckedSQLException(e);
+            }
+
+            this.fetched = true;
+
+            if (!this.hasRow) {
+                this.close();
+            }
+        }
+
+        return this.hasRow;
+    }
+
+    /**
+     * Hydrates the next row.
+     *
+     * @return The next object of {@link java.lang.reflect.Type}
+     * @throws NoSuchElementException If there is no further row
+     * @throws UncheckedSQLException If something SQL relevant fails
+     */
+    @Override
+    public T next() {
+
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        this.fetched = false;
+
+        T object;
+
+        try {
+            object = this.entityMapper.hydrate(this.resultSet);
+        } catch (SQLException e) {
+            this.close();
+            throw new UncheckedSQLException(e);
+        }
+
+        if (this.hydrationListener != null) {
+            this.hydrationListener.accept(object);
+        }
+
+        return object;
+    }
+
+    /**
+     * Returns a sequential {@link java.util.stream.Stream} over the remaining
+     * rows which closes this iterator when it is closed.
+     *
+     * @return A {@link java.util.stream.Stream} of {@link java.lang.reflect.Type}
+     */
+    public Stream<T> stream() {
+
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+            false
+        ).onClose(this::close);
+    }
+
+    /**
+     * Closes the result set and the statement and gives the connection back.
+     *
+     * @throws UncheckedSQLException If something SQL relevant fails
+     */
+    @Override
+    public void close() {
+
+        if (this.closed) {
+            return;
+        }
+
+        this.closed = true;
+
+        SQLException failure = null;
+
+        try {
+            this.resultSet.close();
+        } catch (SQLException e) {
+            failure = e;
+        }
+
+        try {
+            this.preparedStatement.close();
+        } catch (SQLException e) {
+            failure = failure == null ? e : failure;
+        }
+
+        try {
+            this.databaseConnectionHandler.releaseConnection(this.connection);
+        } catch (SQLException e) {
+            failure = failure == null ? e : failure;
+        }
+
+        if (failure != null) {
+            throw new UncheckedSQLException(failure);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package xyz.joestr.dbwrapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maps between the fields of a class and the columns of a
+ * {@link java.sql.ResultSet} or the parameters of a
+ * {@link java.sql.PreparedStatement}.
+ * <p>
+ * All fields, types and accessors are resolved once on construction, so an
+ * instance is immutable and can be shared between threads. If
+ * {@link xyz.joestr.dbwrapper.EntityAccessorGenerator} is enabled, hydration
+ * and binding go through a generated
+ * {@link xyz.joestr.dbwrapper.EntityAccessor}; else through method handles.
+ *
+ * @param <T> The mapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class EntityMapper<T> {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private final Class<T> clazz;
+    private final List<String> fieldNames;
+    private final Class<?>[] fieldTypes;
+    private final Class<?>[] columnTypes;
+    private final boolean[] primitives;
+    private final MethodHandle constructor;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+    private final EntityAccessor<T> accessor;
+
+    /**
+     * Creates a new instance of the {@link xyz.joestr.dbwrapper.EntityMapper}.
+     *
+     * @param clazz The {@link java.lang.Class}
+     * @param fieldNames The names of the mapped fields in column order
+     * @throws NoSuchFieldException If a field or the no-argument constructor
+     * does not exist
+     * @throws IllegalAccessException If the access is prohibited
+     */
+    public EntityMapper(Class<T> clazz, List<String> fieldNames) throws NoSuchFieldException, IllegalAccessException {
+
+        this.clazz = clazz;
+        this.fieldNames = Collections.unmodifiableList(Arrays.asList(fieldNames.toArray(new String[0])));
+
+        int size = this.fieldNames.size();
+
+        this.fieldTypes = new Class<?>[size];
+        this.columnTypes = new Class<?>[size];
+        this.primitives = new boolean[size];
+        this.getters = new MethodHandle[size];
+        this.setters = new MethodHandle[size];
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            Constructor<T> constructor_ = clazz.getDeclaredConstructor();
+            constructor_.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(constructor_).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException e) {
+            throw new NoSuchFieldException(clazz.getName() + " has no no-argument constructor!");
+        }
+
+        for (int i = 0; i < size; i++) {
+
+            Field field_ = clazz.getDeclaredField(this.fieldNames.get(i));
+
+            field_.setAccessible(true);
+
+            this.fieldTypes[i] = field_.getType();
+            this.columnTypes[i] = wrap(field_.getType());
+            this.primitives[i] = field_.getType().isPrimitive();
+            this.getters[i] = lookup.unreflectGetter(field_).asType(GETTER_TYPE);
+            this.setters[i] = lookup.unreflectSetter(field_).asType(SETTER_TYPE);
+        }
+
+        this.accessor = EntityAccessorGenerator.isEnabled()
+            ? EntityAccessorGenerator.generate(clazz, this.fieldNames)
+            : null;
+    }
+
+    /**
+     * Creates a new instance with the no-argument constructor.
+     *
+     * @return A new instance of {@link java.lang.reflect.Type}
+     */
+    public T newInstance() {
+
+        if (this.accessor != null) {
+            return this.accessor.newInstance();
+        }
+
+        try {
+            return this.clazz.cast((Object) this.constructor.invokeExact());
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Creates a new instance from the current row of a
+     * {@link java.sql.ResultSet}. The mapped fields are read from the columns
+     * {@code 1} to {@link #size()}.
+     *
+     * @param resultSet The {@link java.sql.ResultSet}
+     * @return A new instance of {@link java.lang.reflect.Type}
+     * @throws SQLException If something SQL relevant fails
+     */
+    public T hydrate(ResultSet resultSet) throws SQLException {
+
+        if (this.accessor != null) {
+
+            T resultObject = this.accessor.newInstance();
+
+            this.accessor.hydrate(resultObject, resultSet);
+
+            return resultObject;
+        }
+
+        T resultObject = this.newInstance();
+
+        try {
+            for (int i = 0; i < this.setters.length; i++) {
+
+                Object value = resultSet.getObject(i + 1, this.columnTypes[i]);
+
+                // A primitive field keeps its default value for NULL
+                if (value != null || !this.primitives[i]) {
+                    this.setters[i].invokeExact((Object) resultObject, value);
+                }
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+
+        return resultObject;
+    }
+
+    /**
+     * Binds the mapped fields of an object to the parameters
+     * {@code offset + 1} to {@code offset + }{@link #size()} of a
+     * {@link java.sql.PreparedStatement}.
+     *
+     * @param preparedStatement The {@link java.sql.PreparedStatement}
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @param offset The number of parameters before the first bound one
+     * @throws SQLException If something SQL relevant fails
+     */
+    public void bind(PreparedStatement preparedStatement, T object, int offset) throws SQLException {
+
+        if (this.accessor != null) {
+
+            this.accessor.bind(preparedStatement, object, offset);
+            return;
+        }
+
+        try {
+            for (int i = 0; i < this.getters.length; i++) {
+
+                preparedStatement.setObject(offset + i + 1, (Object) this.getters[i].invokeExact((Object) object));
+            }
+        } catch (SQLException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Reads a mapped field.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @param index The index of the field
+     * @return The value of the field
+     */
+    public Object get(T object, int index) {
+
+        try {
+            return (Object) this.getters[index].invokeExact((Object) object);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Writes a mapped field. {@code null} is ignored for primitive fields.
+     *
+     * @param object Object of {@link java.lang.reflect.Type}
+     * @param index The index of the field
+     * @param value The new value of the field
+     */
+    public void set(T object, int index, Object value) {
+
+        if (value == null && this.primitives[index]) {
+            return;
+        }
+
+        try {
+            this.setters[index].invokeExact((Object) object, value);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Returns the number of mapped fields.
+     *
+     * @return An {@code int}
+     */
+    public int size() {
+        return this.setters.length;
+    }
+
+    /**
+     * Returns {@code true} if this mapper uses a generated
+     * {@link xyz.joestr.dbwrapper.EntityAccessor}. Else {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isGenerated() {
+        return this.accessor != null;
+    }
+
+    /**
+     * Returns the mapped class.
+     *
+     * @return The {@link java.lang.Class}
+     */
+    public Class<T> getMappedClass() {
+        return this.clazz;
+    }
+
+    /**
+     * Returns the names of the mapped fields in column order.
+     *
+     * @return An unmodifiable {@link java.util.List}
+     */
+    public List<String> getFieldNames() {
+        return this.fieldNames;
+    }
+
+    /**
+     * Returns the declared type of a mapped field.
+     *
+     * @param index The index of the field
+     * @return The {@link java.lang.Class} of the field
+     */
+    public Class<?> getFieldType(int index) {
+        return this.fieldTypes[index];
+    }
+
+    /**
+     * Returns the type used to read a mapped field from a
+     * {@link java.sql.ResultSet}. Primitive types are boxed.
+     *
+     * @param index The index of the field
+     * @return The {@link java.lang.Class} of the column
+     */
+    public Class<?> getColumnType(int index) {
+        return this.columnTypes[index];
+    }
+
+    /**
+     * Returns the wrapper type for a primitive type.
+     */
+    static Class<?> wrap(Class<?> type) {
+
+        if (!type.isPrimitive()) {
+            return type;
+        }
+
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+
+        return Void.class;
+    }
+
+    /**
+     * Rethrows unchecked throwables and wraps checked ones.
+     */
+    private static RuntimeException rethrow(Throwable t) {
+
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+
+        throw new IllegalStateException(t);
+    }
+}
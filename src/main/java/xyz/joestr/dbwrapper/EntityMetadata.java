@@ -0,0 +1,233 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Holds everything a wrapper derives from the mapping of a class: the names,
+ * the {@link xyz.joestr.dbwrapper.EntityMapper} and the generated SQL. An
+ * instance is immutable apart from its thread-safe caches, so all wrappers of
+ * a class can share it. It lives as long as the class, so it must not hold
+ * anything which depends on a handler, like the SQL of a dialect.
+ *
+ * @param <T> The mapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntityMetadata<T> {
+
+    final Class<T> clazz;
+    final String tableName;
+    final List<String> columnNames;
+    final List<String> fieldNames;
+    final Map<String, Integer> fieldIndices;
+    final List<String> keyColumnNames;
+    final int[] keyIndices;
+    final EntityMapper<T> entityMapper;
+    final String keyMatchSql;
+    final String selectSql;
+    final String findSql;
+    final String insertSql;
+    final String updateSql;
+    final String deleteSql;
+    final String keysetSql;
+    final String orderByKeySql;
+    final Map<BitSet, String> partialUpdateSql = new ConcurrentHashMap<>();
+    final Map<Object, EntityProjector.Projection<?>> projections = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityMetadata}.
+     *
+     * @param clazz The {@link java.lang.Class}
+     * @param tableName The name of the table
+     * @param columnNames The names of the columns
+     * @param fieldNames The names of the fields in column order
+     * @param keyColumnNames The names of the primary key columns; if empty,
+     * updates and deletes match on all columns
+     * @throws IllegalAccessException If the access is prohibited
+     * @throws IllegalArgumentException If a field or a key column does not
+     * exist
+     */
+    EntityMetadata(Class<T> clazz, String tableName, Collection<String> columnNames, Collection<String> fieldNames, Collection<String> keyColumnNames) throws IllegalAccessException {
+
+        if (columnNames.size() != fieldNames.size()) {
+            throw new IllegalArgumentException("columnNames and fieldNames must have the same size!");
+        }
+
+        this.clazz = clazz;
+        this.tableName = tableName;
+        this.columnNames = Collections.unmodifiableList(Arrays.asList(columnNames.toArray(new String[0])));
+        this.fieldNames = Collections.unmodifiableList(Arrays.asList(fieldNames.toArray(new String[0])));
+
+        Map<String, Integer> fieldIndices_ = new HashMap<>();
+
+        for (int i = 0; i < this.fieldNames.size(); i++) {
+            fieldIndices_.put(this.fieldNames.get(i), i);
+        }
+
+        this.fieldIndices = Collections.unmodifiableMap(fieldIndices_);
+        this.keyColumnNames = Collections.unmodifiableList(Arrays.asList(keyColumnNames.toArray(new String[0])));
+
+        // Without a primary key every column identifies the row
+        List<String> matchedColumnNames = this.keyColumnNames.isEmpty() ? this.columnNames : this.keyColumnNames;
+
+        this.keyIndices = new int[matchedColumnNames.size()];
+
+        for (int i = 0; i < this.keyIndices.length; i++) {
+
+            this.keyIndices[i] = this.columnNames.indexOf(matchedColumnNames.get(i));
+
+            if (this.keyIndices[i] < 0) {
+                throw new IllegalArgumentException(
+                    "Key column " + matchedColumnNames.get(i) + " is not mapped by " + clazz.getName() + "!"
+                );
+            }
+        }
+
+        try {
+            this.entityMapper = new EntityMapper<>(clazz, this.fieldNames);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        String columns = String.join(", ", this.columnNames);
+        this.keyMatchSql = " WHERE " + matchedColumnNames.stream().collect(Collectors.joining("=? AND ", "", "=?"));
+
+        this.selectSql = "SELECT " + columns + " FROM " + this.tableName;
+        this.findSql = this.selectSql + this.keyMatchSql;
+        this.insertSql = "INSERT INTO " + this.tableName + "(" + columns + ") VALUES("
+            + this.columnNames.stream().map(columnName -> "?").collect(Collectors.joining(", ")) + ")";
+        this.updateSql = "UPDATE " + this.tableName + " SET "
+            + this.columnNames.stream().collect(Collectors.joining("=?, ", "", "=?"))
+            + this.keyMatchSql;
+        this.deleteSql = "DELETE FROM " + this.tableName + this.keyMatchSql;
+
+        StringBuilder keysetSql = new StringBuilder("(");
+
+        for (int i = 0; i < this.keyColumnNames.size(); i++) {
+
+            keysetSql.append(i == 0 ? "(" : " OR (");
+
+            for (int j = 0; j < i; j++) {
+                keysetSql.append(this.keyColumnNames.get(j)).append(" = ? AND ");
+            }
+
+            keysetSql.append(this.keyColumnNames.get(i)).append(" > ?)");
+        }
+
+        this.keysetSql = keysetSql.append(")").toString();
+        this.orderByKeySql = " ORDER BY " + String.join(", ", this.keyColumnNames);
+    }
+
+    /**
+     * Returns the primary key values of an object, or all values without a
+     * primary key, as a list which can be used as map key.
+     */
+    List<Object> keyOf(T object) {
+
+        Object[] keyValues = new Object[this.keyIndices.length];
+
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = this.entityMapper.get(object, this.keyIndices[i]);
+        }
+
+        return Arrays.asList(keyValues);
+    }
+
+    /**
+     * Returns the primary key values of column values.
+     */
+    List<Object> keyOf(Object[] values) {
+
+        Object[] keyValues = new Object[this.keyIndices.length];
+
+        for (int i = 0; i < keyValues.length; i++) {
+            keyValues[i] = values[this.keyIndices[i]];
+        }
+
+        return Arrays.asList(keyValues);
+    }
+
+    /**
+     * Copies the values of all mapped fields. Mutable values are copied, too.
+     */
+    Object[] valuesOf(T object) {
+
+        Object[] values = new Object[this.columnNames.size()];
+
+        for (int i = 0; i < values.length; i++) {
+
+            Object value = this.entityMapper.get(object, i);
+
+            values[i] = copyOf(value);
+        }
+
+        return values;
+    }
+
+    /**
+     * Copies a value if it is one of the mutable types JDBC hydrates: byte
+     * arrays and {@link java.util.Date}s, including {@link java.sql.Timestamp},
+     * {@link java.sql.Date} and {@link java.sql.Time}.
+     */
+    static Object copyOf(Object value) {
+
+        if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+
+        if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).clone();
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the values of all columns of an object followed by the key
+     * values of {@code keyObject}, if any, in the order they are bound.
+     */
+    List<Object> bindValuesOf(T object, T keyObject) {
+
+        List<Object> values = new ArrayList<>(Arrays.asList(this.valuesOf(object)));
+
+        if (keyObject != null) {
+            values.addAll(this.keyOf(keyObject));
+        }
+
+        return values;
+    }
+
+    /**
+     * Binds the primary key values, or all values without a primary key,
+     * after {@code offset} placeholders.
+     */
+    void bindKey(PreparedStatement preparedStatement, T object, int offset) throws SQLException {
+
+        for (int i = 0; i < this.keyIndices.length; i++) {
+
+            preparedStatement.setObject(offset + i + 1, this.entityMapper.get(object, this.keyIndices[i]));
+        }
+    }
+
+    /**
+     * Throws if the class has no primary key.
+     */
+    void requirePrimaryKey() {
+
+        if (this.keyColumnNames.isEmpty()) {
+            throw new IllegalStateException(this.clazz.getName() + " has no primary key!");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * Resolves the {@link xyz.joestr.dbwrapper.EntityMetadata} of a class once
+ * and hands the same instance to every wrapper of the class. The metadata is
+ * stored in a {@link java.lang.ClassValue}, so lookups are thread-safe and
+ * need no lock. A failed resolution is not stored and is tried again by the
+ * next wrapper.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntityMetadataRegistry {
+
+    private final ClassValue<EntityMetadata<?>> metadata;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityMetadataRegistry}.
+     *
+     * @param resolver Resolves the metadata of a class on its first lookup
+     */
+    EntityMetadataRegistry(Resolver resolver) {
+
+        this.metadata = new ClassValue<EntityMetadata<?>>() {
+
+            @Override
+            protected EntityMetadata<?> computeValue(Class<?> type) {
+
+                try {
+                    return resolver.resolve(type);
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new ResolutionException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the metadata of a class.
+     *
+     * @param <T> The mapped class
+     * @param clazz The {@link java.lang.Class}
+     * @return The {@link xyz.joestr.dbwrapper.EntityMetadata}
+     * @throws InstantiationException If the instantiation fails
+     * @throws IllegalAccessException If the access is prohibited
+     */
+    @SuppressWarnings("unchecked")
+    <T> EntityMetadata<T> get(Class<T> clazz) throws InstantiationException, IllegalAccessException {
+
+        try {
+            return (EntityMetadata<T>) this.metadata.get(clazz);
+        } catch (ResolutionException e) {
+
+            if (e.getCause() instanceof InstantiationException) {
+                throw (InstantiationException) e.getCause();
+            }
+
+            throw (IllegalAccessException) e.getCause();
+        }
+    }
+
+    /**
+     * Resolves the metadata of a class.
+     */
+    @FunctionalInterface
+    interface Resolver {
+
+        EntityMetadata<?> resolve(Class<?> clazz) throws InstantiationException, IllegalAccessException;
+    }
+
+    /**
+     * Carries a checked exception out of {@link java.lang.ClassValue}.
+     */
+    private static final class ResolutionException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private ResolutionException(ReflectiveOperationException cause) {
+            super(cause);
+        }
+    }
+}
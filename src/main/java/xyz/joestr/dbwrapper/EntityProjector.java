@@ -0,0 +1,266 @@
+package xyz.joestr.dbwrapper;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+
+/**
+ * Reads parts of the entries of a wrapper: projections onto some columns and
+ * aggregates, which the database computes. No entity is hydrated for an
+ * aggregate, and projected objects are neither remembered nor cached.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntityProjector<T> {
+
+    private final AbstractDatabaseWrapper<T> wrapper;
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final EntityMetadata<T> metadata;
+    private final StatementObserver statementObserver;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityProjector}.
+     *
+     * @param wrapper The wrapper whose fields are read
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param metadata The {@link xyz.joestr.dbwrapper.EntityMetadata}
+     * @param statementObserver The {@link xyz.joestr.dbwrapper.StatementObserver}
+     */
+    EntityProjector(AbstractDatabaseWrapper<T> wrapper, DatabaseConnectionHandler databaseConnectionHandler, EntityMetadata<T> metadata, StatementObserver statementObserver) {
+
+        this.wrapper = wrapper;
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.metadata = metadata;
+        this.statementObserver = statementObserver;
+    }
+
+    /**
+     * Selects only some columns of the entries which match the criteria.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#selectFields(java.util.Collection, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    Collection<T> selectFields(Collection<String> fieldNames, DatabaseCriteria criteria) throws SQLException {
+
+        if (fieldNames == null) {
+            throw new NullPointerException("fieldNames can not be null!");
+        }
+
+        if (fieldNames.isEmpty()) {
+            throw new IllegalArgumentException("fieldNames can not be empty!");
+        }
+
+        // Column order, so every set of fields has one projection
+        List<String> orderedFieldNames = this.metadata.fieldNames.stream()
+            .filter(fieldNames::contains)
+            .collect(Collectors.toList());
+
+        for (String fieldName : fieldNames) {
+            this.wrapper.getFieldIndex(fieldName);
+        }
+
+        @SuppressWarnings("unchecked")
+        Projection<T> projection = (Projection<T>) this.metadata.projections.computeIfAbsent(
+            orderedFieldNames,
+            key -> this.createProjection(
+                this.metadata.clazz,
+                orderedFieldNames.stream().map(this.wrapper::getColumnName).collect(Collectors.toList()),
+                orderedFieldNames
+            )
+        );
+
+        return this.project(projection, criteria);
+    }
+
+    /**
+     * Selects the columns a class maps of the entries which match the
+     * criteria.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#selectAs(java.lang.Class, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    <P> Collection<P> selectAs(Class<P> projectionClass, DatabaseCriteria criteria) throws SQLException {
+
+        if (projectionClass == null) {
+            throw new NullPointerException("projectionClass can not be null!");
+        }
+
+        @SuppressWarnings("unchecked")
+        Projection<P> projection = (Projection<P>) this.metadata.projections.computeIfAbsent(projectionClass, key -> {
+
+            List<Field> annotatedFields = DatabaseAnnotationWrapper.resolveAnnotatedFields(projectionClass);
+
+            if (annotatedFields.isEmpty()) {
+                throw new IllegalArgumentException(projectionClass.getName() + " maps no field!");
+            }
+
+            List<String> columnNames_ = new ArrayList<>(annotatedFields.size());
+            List<String> fieldNames_ = new ArrayList<>(annotatedFields.size());
+
+            for (Field field : annotatedFields) {
+
+                String columnName = field.getAnnotation(WrappedField.class).name();
+
+                if (!this.metadata.columnNames.contains(columnName)) {
+                    throw new IllegalArgumentException(
+                        "Column " + columnName + " is not mapped by " + this.metadata.clazz.getName() + "!"
+                    );
+                }
+
+                columnNames_.add(columnName);
+                fieldNames_.add(field.getName());
+            }
+
+            return this.createProjection(projectionClass, columnNames_, fieldNames_);
+        });
+
+        return this.project(projection, criteria);
+    }
+
+    /**
+     * Counts the entries which match the criteria.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#count(xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    long count(DatabaseCriteria criteria) throws SQLException {
+
+        return this.aggregate("COUNT(*)", criteria, resultSet -> resultSet.getLong(1));
+    }
+
+    /**
+     * Checks if any entry matches the criteria.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#exists(xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    boolean exists(DatabaseCriteria criteria) throws SQLException {
+
+        DatabaseCriteria.Compiled compiled = this.wrapper.compile(criteria, false);
+
+        List<Object> parameters = new ArrayList<>(compiled.parameters);
+        parameters.add(1);
+
+        return this.statementObserver.execute(
+            DatabaseOperation.SELECT,
+            "SELECT 1 FROM " + this.metadata.tableName + compiled.sql + this.databaseConnectionHandler.getDialect().limitClause(),
+            () -> parameters,
+            preparedStatement -> {
+
+                StatementObserver.bindParameters(preparedStatement, parameters);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    return resultSet.next();
+                }
+            }
+        );
+    }
+
+    /**
+     * Sums a numeric field over the entries which match the criteria.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#sum(java.lang.String, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    BigDecimal sum(String fieldName, DatabaseCriteria criteria) throws SQLException {
+
+        BigDecimal sum = this.aggregate(
+            "SUM(" + this.wrapper.getColumnName(fieldName) + ")", criteria, resultSet -> resultSet.getBigDecimal(1)
+        );
+
+        return sum == null ? BigDecimal.ZERO : sum;
+    }
+
+    /**
+     * Computes an aggregate over a field and reads it as the type of the
+     * field.
+     */
+    @SuppressWarnings("unchecked")
+    <V> V aggregateField(String function, String fieldName, DatabaseCriteria criteria) throws SQLException {
+
+        int index = this.wrapper.getFieldIndex(fieldName);
+        Class<?> type = this.metadata.entityMapper.getColumnType(index);
+
+        return (V) this.aggregate(
+            function + "(" + this.metadata.columnNames.get(index) + ")", criteria, resultSet -> resultSet.getObject(1, type)
+        );
+    }
+
+    /**
+     * Computes an aggregate on the database and reads the single row.
+     */
+    private <R> R aggregate(String expression, DatabaseCriteria criteria, ResultReader<R> resultReader) throws SQLException {
+
+        DatabaseCriteria.Compiled compiled = this.wrapper.compile(criteria, false);
+
+        return this.statementObserver.execute(
+            DatabaseOperation.SELECT,
+            "SELECT " + expression + " FROM " + this.metadata.tableName + compiled.sql,
+            () -> compiled.parameters,
+            preparedStatement -> {
+
+                StatementObserver.bindParameters(preparedStatement, compiled.parameters);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                    resultSet.next();
+
+                    return resultReader.read(resultSet);
+                }
+            }
+        );
+    }
+
+    /**
+     * Resolves the statement and the mapper of a projection.
+     */
+    private <P> Projection<P> createProjection(Class<P> projectionClass, List<String> columnNames_, List<String> fieldNames_) {
+
+        try {
+            return new Projection<>(
+                "SELECT " + String.join(", ", columnNames_) + " FROM " + this.metadata.tableName,
+                new EntityMapper<>(projectionClass, fieldNames_)
+            );
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs the query of a projection and hydrates every row.
+     */
+    private <P> List<P> project(Projection<P> projection, DatabaseCriteria criteria) throws SQLException {
+
+        DatabaseCriteria.Compiled compiled = this.wrapper.compile(criteria, true);
+
+        return this.statementObserver.read(projection.sql + compiled.sql, compiled.parameters, projection.entityMapper, null);
+    }
+
+    /**
+     * Reads a value from the current row.
+     */
+    @FunctionalInterface
+    private interface ResultReader<R> {
+
+        R read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * The statement and the mapper of a projection.
+     */
+    static final class Projection<P> {
+
+        private final String sql;
+        private final EntityMapper<P> entityMapper;
+
+        private Projection(String sql, EntityMapper<P> entityMapper) {
+            this.sql = sql;
+            this.entityMapper = entityMapper;
+        }
+    }
+}
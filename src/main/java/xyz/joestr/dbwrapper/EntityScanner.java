@@ -0,0 +1,338 @@
+package xyz.joestr.dbwrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the entries of a wrapper in parts: page by page in primary key order
+ * or in partitions which are read in parallel. The rows are read through the
+ * wrapper, so they are remembered and cached like the rows of any other
+ * query.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntityScanner<T> {
+
+    private final AbstractDatabaseWrapper<T> wrapper;
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final EntityMetadata<T> metadata;
+    private final StatementObserver statementObserver;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityScanner}.
+     *
+     * @param wrapper The wrapper which reads the rows
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param metadata The {@link xyz.joestr.dbwrapper.EntityMetadata}
+     * @param statementObserver The {@link xyz.joestr.dbwrapper.StatementObserver}
+     */
+    EntityScanner(AbstractDatabaseWrapper<T> wrapper, DatabaseConnectionHandler databaseConnectionHandler, EntityMetadata<T> metadata, StatementObserver statementObserver) {
+
+        this.wrapper = wrapper;
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.metadata = metadata;
+        this.statementObserver = statementObserver;
+    }
+
+    /**
+     * Selects the entries which match the criteria and follow a key in
+     * primary key order.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#page(xyz.joestr.dbwrapper.DatabaseCriteria, java.util.List, int)
+     */
+    DatabasePage<T> page(DatabaseCriteria criteria, List<?> afterKey, int size) throws SQLException {
+
+        this.metadata.requirePrimaryKey();
+
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1!");
+        }
+
+        if (afterKey != null && afterKey.size() != this.metadata.keyIndices.length) {
+            throw new IllegalArgumentException(
+                "Expected " + this.metadata.keyIndices.length + " key values but got " + afterKey.size() + "!"
+            );
+        }
+
+        DatabaseCriteria.Compiled compiled = this.wrapper.compile(criteria, false);
+
+        StringBuilder sql = new StringBuilder(this.metadata.selectSql).append(compiled.sql);
+        List<Object> parameters = new ArrayList<>(compiled.parameters);
+
+        if (afterKey != null) {
+
+            sql.append(compiled.sql.isEmpty() ? " WHERE " : " AND ").append(this.metadata.keysetSql);
+
+            // (k1 > ?) OR (k1 = ? AND k2 > ?) OR ...
+            for (int i = 0; i < afterKey.size(); i++) {
+                parameters.addAll(afterKey.subList(0, i + 1));
+            }
+        }
+
+        sql.append(this.metadata.orderByKeySql).append(this.databaseConnectionHandler.getDialect().limitClause());
+
+        // One more row tells if there is a next page
+        parameters.add(size + 1);
+
+        List<T> content = new ArrayList<>(this.wrapper.query(sql.toString(), parameters));
+
+        if (content.size() <= size) {
+            return new DatabasePage<>(Collections.unmodifiableList(content), null);
+        }
+
+        content.remove(size);
+
+        return new DatabasePage<>(
+            Collections.unmodifiableList(content),
+            Collections.unmodifiableList(this.metadata.keyOf(content.get(size - 1)))
+        );
+    }
+
+    /**
+     * Streams the entries which match the criteria page by page.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#pages(xyz.joestr.dbwrapper.DatabaseCriteria, int)
+     */
+    Stream<DatabasePage<T>> pages(DatabaseCriteria criteria, int size) {
+
+        this.metadata.requirePrimaryKey();
+
+        if (criteria == null) {
+            throw new NullPointerException("criteria can not be null!");
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1!");
+        }
+
+        Iterator<DatabasePage<T>> iterator = new Iterator<DatabasePage<T>>() {
+
+            private DatabasePage<T> previous;
+
+            @Override
+            public boolean hasNext() {
+                return this.previous == null || this.previous.hasNext();
+            }
+
+            @Override
+            public DatabasePage<T> next() {
+
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    this.previous = EntityScanner.this.page(
+                        criteria, this.previous == null ? null : this.previous.getContinuationKey(), size
+                    );
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+
+                return this.previous;
+            }
+        };
+
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false
+        );
+    }
+
+    /**
+     * Selects the entries which match the criteria partition by partition.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#selectParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    Collection<T> selectParallel(int partitions, DatabasePartitioning partitioning, DatabaseCriteria criteria) throws SQLException {
+
+        List<CompletableFuture<List<T>>> futures = this.scanPartitions(partitions, partitioning, criteria);
+
+        List<T> result = new ArrayList<>();
+
+        for (CompletableFuture<List<T>> future : futures) {
+            result.addAll(joinPartition(future));
+        }
+
+        return result;
+    }
+
+    /**
+     * Streams the entries which match the criteria partition by partition.
+     *
+     * @see xyz.joestr.dbwrapper.AbstractDatabaseWrapper#streamParallel(int, xyz.joestr.dbwrapper.DatabasePartitioning, xyz.joestr.dbwrapper.DatabaseCriteria)
+     */
+    Stream<T> streamParallel(int partitions, DatabasePartitioning partitioning, DatabaseCriteria criteria) throws SQLException {
+
+        List<CompletableFuture<List<T>>> futures = this.scanPartitions(partitions, partitioning, criteria);
+
+        return futures.stream().parallel().flatMap(future -> {
+
+            try {
+                return joinPartition(future).stream();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
+
+    /**
+     * Starts the query of every partition. Empty key ranges are left out.
+     */
+    private List<CompletableFuture<List<T>>> scanPartitions(int partitions, DatabasePartitioning partitioning, DatabaseCriteria criteria) throws SQLException {
+
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1!");
+        }
+
+        if (partitioning == null) {
+            throw new NullPointerException("partitioning can not be null!");
+        }
+
+        this.metadata.requirePrimaryKey();
+
+        Class<?> keyType = this.metadata.entityMapper.getColumnType(this.metadata.keyIndices[0]);
+
+        if (keyType != Long.class && keyType != Integer.class && keyType != Short.class
+            && keyType != Byte.class && keyType != BigInteger.class) {
+            throw new IllegalStateException(
+                "The first key column of " + this.metadata.clazz.getName() + " is not of an integral type!"
+            );
+        }
+
+        DatabaseCriteria.Compiled compiled = this.wrapper.compile(criteria, false);
+        String keyColumnName = this.metadata.keyColumnNames.get(0);
+        String sql = this.metadata.selectSql + compiled.sql + (compiled.sql.isEmpty() ? " WHERE " : " AND ");
+
+        List<String> partitionSql = new ArrayList<>();
+        List<List<Object>> partitionParameters = new ArrayList<>();
+
+        if (partitioning == DatabasePartitioning.MODULO) {
+
+            for (int i = 0; i < partitions; i++) {
+
+                List<Object> parameters = new ArrayList<>(compiled.parameters);
+                parameters.add(i);
+
+                partitionSql.add(sql + "ABS(MOD(" + keyColumnName + ", " + partitions + ")) = ?");
+                partitionParameters.add(parameters);
+            }
+        } else {
+
+            BigInteger[] range = this.statementObserver.execute(
+                DatabaseOperation.SELECT,
+                "SELECT MIN(" + keyColumnName + "), MAX(" + keyColumnName + ") FROM " + this.metadata.tableName + compiled.sql,
+                () -> compiled.parameters,
+                preparedStatement -> {
+
+                    StatementObserver.bindParameters(preparedStatement, compiled.parameters);
+
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                        resultSet.next();
+
+                        BigDecimal minimum = resultSet.getBigDecimal(1);
+                        BigDecimal maximum = resultSet.getBigDecimal(2);
+
+                        return minimum == null
+                            ? null
+                            : new BigInteger[]{minimum.toBigInteger(), maximum.toBigInteger()};
+                    }
+                }
+            );
+
+            if (range == null) {
+                return Collections.emptyList();
+            }
+
+            BigInteger width = range[1].subtract(range[0]).add(BigInteger.ONE);
+            List<BigDecimal> bounds = new ArrayList<>();
+
+            for (int i = 1; i < partitions; i++) {
+
+                BigDecimal bound = new BigDecimal(
+                    range[0].add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions)))
+                );
+
+                if (bounds.isEmpty() || !bound.equals(bounds.get(bounds.size() - 1))) {
+                    bounds.add(bound);
+                }
+            }
+
+            // The outer partitions are open, so keys beyond the range are read, too
+            for (int i = 0; i <= bounds.size(); i++) {
+
+                List<Object> parameters = new ArrayList<>(compiled.parameters);
+                List<String> conditions = new ArrayList<>(2);
+
+                if (i > 0) {
+                    conditions.add(keyColumnName + " >= ?");
+                    parameters.add(bounds.get(i - 1));
+                }
+
+                if (i < bounds.size()) {
+                    conditions.add(keyColumnName + " < ?");
+                    parameters.add(bounds.get(i));
+                }
+
+                partitionSql.add(conditions.isEmpty() ? this.metadata.selectSql + compiled.sql : sql + String.join(" AND ", conditions));
+                partitionParameters.add(parameters);
+            }
+        }
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(partitionSql.size());
+
+        for (int i = 0; i < partitionSql.size(); i++) {
+
+            String sql_ = partitionSql.get(i);
+            List<Object> parameters = partitionParameters.get(i);
+
+            // Other connections would not see the uncommitted rows
+            if (this.databaseConnectionHandler.getTransaction() != null) {
+                futures.add(CompletableFuture.completedFuture(this.wrapper.load(sql_, parameters)));
+            } else {
+                futures.add(this.databaseConnectionHandler.executeAsync(() -> this.wrapper.load(sql_, parameters)));
+            }
+        }
+
+        return futures;
+    }
+
+    /**
+     * Waits for the rows of a partition.
+     */
+    private static <T> List<T> joinPartition(CompletableFuture<List<T>> future) throws SQLException {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+}
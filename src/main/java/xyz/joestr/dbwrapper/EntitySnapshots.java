@@ -0,0 +1,116 @@
+package xyz.joestr.dbwrapper;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the column values of entities as they were last read from or written
+ * to the database. Entities are compared by identity and held weakly, so a
+ * snapshot disappears together with its entity.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntitySnapshots {
+
+    private final Map<IdentityKey, Object[]> snapshots = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * Returns the snapshot of an entity or {@code null} if there is none.
+     */
+    Object[] get(Object entity) {
+
+        this.expunge();
+
+        return this.snapshots.get(new IdentityKey(entity, null));
+    }
+
+    /**
+     * Replaces the snapshot of an entity.
+     */
+    void put(Object entity, Object[] values) {
+
+        this.expunge();
+
+        this.snapshots.put(new IdentityKey(entity, this.queue), values);
+    }
+
+    /**
+     * Removes the snapshot of an entity.
+     */
+    void remove(Object entity) {
+
+        this.expunge();
+
+        this.snapshots.remove(new IdentityKey(entity, null));
+    }
+
+    /**
+     * Removes all snapshots.
+     */
+    void clear() {
+
+        this.expunge();
+
+        this.snapshots.clear();
+    }
+
+    /**
+     * Returns the number of snapshots of entities which are still reachable.
+     */
+    int size() {
+
+        this.expunge();
+
+        return this.snapshots.size();
+    }
+
+    private void expunge() {
+
+        Reference<?> reference;
+
+        while ((reference = this.queue.poll()) != null) {
+            this.snapshots.remove(reference);
+        }
+    }
+
+    /**
+     * A weak key which compares its referent by identity.
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        private IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+
+            super(referent, queue);
+
+            this.hashCode = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+
+            if (this == object) {
+                return true;
+            }
+
+            if (!(object instanceof IdentityKey)) {
+                return false;
+            }
+
+            Object referent = this.get();
+
+            return referent != null && referent == ((IdentityKey) object).get();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of the objects of a wrapper: the snapshots of their values for
+ * dirty tracking and their rows in the entity cache. Rows read or written in
+ * a transaction reach the cache only when the transaction commits.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class EntityTracker<T> {
+
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final EntityMetadata<T> metadata;
+    private final EntitySnapshots snapshots = new EntitySnapshots();
+    private volatile boolean dirtyTracking = false;
+    private volatile EntityCache entityCache;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.EntityTracker}.
+     *
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler} of the wrapper
+     * @param metadata The {@link xyz.joestr.dbwrapper.EntityMetadata} of the
+     * wrapped class
+     */
+    EntityTracker(DatabaseConnectionHandler databaseConnectionHandler, EntityMetadata<T> metadata) {
+
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.metadata = metadata;
+    }
+
+    boolean isDirtyTracking() {
+        return this.dirtyTracking;
+    }
+
+    /**
+     * Turns dirty tracking on or off. Disabling drops all snapshots.
+     */
+    void setDirtyTracking(boolean dirtyTracking) {
+
+        this.dirtyTracking = dirtyTracking;
+
+        if (!dirtyTracking) {
+            this.snapshots.clear();
+        }
+    }
+
+    EntityCache getEntityCache() {
+        return this.entityCache;
+    }
+
+    void setEntityCache(EntityCache entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    /**
+     * Returns {@code true} if read objects have to be remembered. Else
+     * {@code false}.
+     */
+    boolean isTracking() {
+        return this.dirtyTracking || this.entityCache != null;
+    }
+
+    /**
+     * Returns the snapshot of an object or {@code null} if there is none.
+     */
+    Object[] snapshotOf(T object) {
+
+        return this.snapshots.get(object);
+    }
+
+    /**
+     * Drops the snapshot of an object.
+     */
+    void forget(T object) {
+
+        this.snapshots.remove(object);
+    }
+
+    /**
+     * Remembers the values of an object which was read from its row, as
+     * snapshot if dirty tracking is on and in the entity cache if one is
+     * set. The row is not cached if it was written since {@code version}.
+     */
+    void remember(T object, long version) {
+
+        EntityCache cache = this.entityCache;
+
+        if (!this.dirtyTracking && cache == null) {
+            return;
+        }
+
+        Object[] values = this.metadata.valuesOf(object);
+
+        this.remember(object, values, null);
+
+        if (cache != null && version >= 0) {
+            cache.put(this.metadata.keyOf(values), values, version);
+        }
+    }
+
+    /**
+     * Remembers the values of an object which was written to its row. They
+     * are cached when the write ends.
+     */
+    void remember(T object, EntityCache.Write write) {
+
+        if (this.dirtyTracking || write != null) {
+            this.remember(object, this.metadata.valuesOf(object), write);
+        }
+    }
+
+    void remember(T object, Object[] values, EntityCache.Write write) {
+
+        if (this.dirtyTracking) {
+
+            DatabaseTransaction transaction = this.databaseConnectionHandler.getTransaction();
+
+            // Values written in a transaction are wrong after a rollback
+            if (transaction != null) {
+                transaction.onRollback(() -> this.snapshots.remove(object));
+            }
+
+            this.snapshots.put(object, values);
+        }
+
+        if (write != null) {
+            write.put(this.metadata.keyOf(values), values);
+        }
+    }
+
+    /**
+     * Returns the version of the entity cache to read rows at, or {@code -1}
+     * if they are not cached, as in a transaction, whose rows other threads
+     * must not see before the commit.
+     */
+    long readVersion() {
+
+        EntityCache cache = this.entityCache;
+
+        if (cache == null || this.databaseConnectionHandler.getTransaction() != null) {
+            return -1;
+        }
+
+        return cache.version();
+    }
+
+    /**
+     * Starts a write of the rows of the objects in the entity cache, if one
+     * is set. Their entries are removed until the write ends.
+     */
+    EntityCache.Write beginWrite(Collection<T> objects) {
+
+        if (this.entityCache == null) {
+            return null;
+        }
+
+        List<List<Object>> keys = new ArrayList<>(objects.size());
+
+        for (T object : objects) {
+            keys.add(this.metadata.keyOf(object));
+        }
+
+        return this.beginWriteOfKeys(keys);
+    }
+
+    EntityCache.Write beginWriteOfKeys(List<List<Object>> keys) {
+
+        EntityCache cache = this.entityCache;
+
+        return cache == null ? null : cache.beginWrite(keys);
+    }
+
+    /**
+     * Ends a write in the entity cache. In a transaction the write ends with
+     * the transaction, so no other thread sees uncommitted rows, and a
+     * rollback drops the written values.
+     */
+    void endWrite(EntityCache.Write write) {
+
+        if (write == null) {
+            return;
+        }
+
+        DatabaseTransaction transaction = this.databaseConnectionHandler.getTransaction();
+
+        if (transaction == null) {
+            write.end();
+            return;
+        }
+
+        transaction.onRollback(write::discard);
+        transaction.onCompletion(write, write::end);
+    }
+
+    /**
+     * Hydrates a new object from cached values.
+     */
+    T restore(Object[] values) {
+
+        T object = this.metadata.entityMapper.newInstance();
+
+        for (int i = 0; i < values.length; i++) {
+
+            this.metadata.entityMapper.set(object, i, EntityMetadata.copyOf(values[i]));
+        }
+
+        if (this.dirtyTracking) {
+            this.snapshots.put(object, values);
+        }
+
+        return object;
+    }
+}
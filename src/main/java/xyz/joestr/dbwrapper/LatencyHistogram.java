@@ -0,0 +1,259 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations in buckets of logarithmically growing width, like an HDR
+ * histogram with a precision of about six percent. Recording is lock-free
+ * and needs no allocation, so the histogram can be shared by any number of
+ * threads.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class LatencyHistogram {
+
+    // 16 buckets per power of two
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds; negative values count as
+     * {@code 0}
+     */
+    public void record(long nanos) {
+
+        long value = Math.max(0, nanos);
+
+        this.counts.incrementAndGet(bucketOf(value));
+        this.count.increment();
+        this.sum.add(value);
+
+        long maximum_ = this.maximum.get();
+
+        while (value > maximum_ && !this.maximum.compareAndSet(maximum_, value)) {
+            maximum_ = this.maximum.get();
+        }
+    }
+
+    /**
+     * Removes all recorded durations. Durations recorded at the same time may
+     * survive partially.
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+
+        this.count.reset();
+        this.sum.reset();
+        this.maximum.set(0);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return A {@code long}
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the largest recorded duration.
+     *
+     * @return A {@code long} in nanoseconds
+     */
+    public long getMaximum() {
+        return this.maximum.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return A {@code double} in nanoseconds
+     */
+    public double getMean() {
+
+        long count_ = this.count.sum();
+
+        return count_ == 0 ? 0 : (double) this.sum.sum() / count_;
+    }
+
+    /**
+     * Returns the duration below which the given share of the recorded
+     * durations lies.
+     *
+     * @param percentile The share between {@code 0} and {@code 100}
+     * @return A {@code long} in nanoseconds; the upper end of its bucket, but
+     * at most the largest recorded duration
+     */
+    public long getPercentile(double percentile) {
+
+        long[] counts_ = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts_[i] = this.counts.get(i);
+            total += counts_[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+
+            seen += counts_[i];
+
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.maximum.get());
+            }
+        }
+
+        return this.maximum.get();
+    }
+
+    /**
+     * Returns the current values.
+     *
+     * @return The {@link xyz.joestr.dbwrapper.LatencyHistogram.Snapshot}
+     */
+    public Snapshot snapshot() {
+
+        return new Snapshot(
+            this.getCount(),
+            this.getMean(),
+            this.getPercentile(50),
+            this.getPercentile(90),
+            this.getPercentile(99),
+            this.getPercentile(99.9),
+            this.getMaximum()
+        );
+    }
+
+    private static int bucketOf(long value) {
+
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    private static long upperBoundOf(int bucket) {
+
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * The values of a {@link xyz.joestr.dbwrapper.LatencyHistogram} at one
+     * point in time. All durations are in nanoseconds.
+     */
+    public static final class Snapshot {
+
+        private final long count;
+        private final double mean;
+        private final long median;
+        private final long percentile90;
+        private final long percentile99;
+        private final long percentile999;
+        private final long maximum;
+
+        private Snapshot(long count, double mean, long median, long percentile90, long percentile99, long percentile999, long maximum) {
+            this.count = count;
+            this.mean = mean;
+            this.median = median;
+            this.percentile90 = percentile90;
+            this.percentile99 = percentile99;
+            this.percentile999 = percentile999;
+            this.maximum = maximum;
+        }
+
+        /**
+         * Returns the number of recorded durations.
+         *
+         * @return A {@code long}
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return A {@code double}
+         */
+        public double getMean() {
+            return this.mean;
+        }
+
+        /**
+         * Returns the median duration.
+         *
+         * @return A {@code long}
+         */
+        public long getMedian() {
+            return this.median;
+        }
+
+        /**
+         * Returns the 90th percentile.
+         *
+         * @return A {@code long}
+         */
+        public long getPercentile90() {
+            return this.percentile90;
+        }
+
+        /**
+         * Returns the 99th percentile.
+         *
+         * @return A {@code long}
+         */
+        public long getPercentile99() {
+            return this.percentile99;
+        }
+
+        /**
+         * Returns the 99.9th percentile.
+         *
+         * @return A {@code long}
+         */
+        public long getPercentile999() {
+            return this.percentile999;
+        }
+
+        /**
+         * Returns the largest duration.
+         *
+         * @return A {@code long}
+         */
+        public long getMaximum() {
+            return this.maximum;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package xyz.joestr.dbwrapper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the hydrated results of queries by their SQL text and parameters.
+ * The cache is shared by all wrappers of a
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler} and is set with
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#setQueryResultCache(xyz.joestr.dbwrapper.QueryResultCache)}.
+ * <p>
+ * Every write of a wrapper invalidates all results of its table. A table
+ * also gets a new generation on every write, so a result which was read
+ * while a write ran is never served. The memory is bounded by the total
+ * number of cached rows; the least recently used results are dropped first.
+ * Changes which bypass the wrappers are not seen until the table is
+ * invalidated with {@link #invalidate(java.lang.String)}.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public final class QueryResultCache {
+
+    private final int maximumRows;
+    private final boolean sharedResults;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private int rows = 0;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.QueryResultCache} which hands out copies
+     * of the cached objects.
+     *
+     * @param maximumRows The maximum number of cached rows over all results
+     * @throws IllegalArgumentException If {@code maximumRows} is less than 1
+     */
+    public QueryResultCache(int maximumRows) {
+
+        this(maximumRows, false);
+    }
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.QueryResultCache}.
+     *
+     * @param maximumRows The maximum number of cached rows over all results
+     * @param sharedResults If hits return the cached, unmodifiable result
+     * itself instead of copies of its objects. Hits then do not allocate, but
+     * the objects must not be modified by the callers.
+     * @throws IllegalArgumentException If {@code maximumRows} is less than 1
+     */
+    public QueryResultCache(int maximumRows, boolean sharedResults) {
+
+        if (maximumRows < 1) {
+            throw new IllegalArgumentException("maximumRows must be at least 1!");
+        }
+
+        this.maximumRows = maximumRows;
+        this.sharedResults = sharedResults;
+    }
+
+    /**
+     * Removes all results of a table.
+     *
+     * @param tableName The name of the table
+     */
+    public void invalidate(String tableName) {
+
+        this.generations.computeIfAbsent(tableName, key -> new AtomicLong()).incrementAndGet();
+
+        synchronized (this) {
+
+            Iterator<Entry> iterator = this.entries.values().iterator();
+
+            while (iterator.hasNext()) {
+
+                Entry entry = iterator.next();
+
+                if (entry.tableName.equals(tableName)) {
+                    this.rows -= weight(entry.result);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    public void invalidateAll() {
+
+        this.generations.values().forEach(AtomicLong::incrementAndGet);
+
+        synchronized (this) {
+            this.entries.clear();
+            this.rows = 0;
+        }
+    }
+
+    /**
+     * Returns {@code true} if hits return the cached result itself. Else
+     * {@code false}.
+     *
+     * @return A {@code boolean}
+     */
+    public boolean isSharedResults() {
+        return this.sharedResults;
+    }
+
+    /**
+     * Returns the maximum number of cached rows.
+     *
+     * @return An {@code int}
+     */
+    public int getMaximumRows() {
+        return this.maximumRows;
+    }
+
+    /**
+     * Returns the number of cached rows.
+     *
+     * @return An {@code int}
+     */
+    public synchronized int getRowCount() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return An {@code int}
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found a result.
+     *
+     * @return A {@code long}
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which found no result.
+     *
+     * @return A {@code long}
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of results dropped to stay within the row budget.
+     *
+     * @return A {@code long}
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the current generation of a table. It must be read before the
+     * query runs and passed to {@link #put}.
+     */
+    long generation(String tableName) {
+
+        AtomicLong generation = this.generations.get(tableName);
+
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Returns the cached, unmodifiable result or {@code null}.
+     */
+    List<?> get(Object key, String tableName) {
+
+        long generation = this.generation(tableName);
+        Entry entry;
+
+        synchronized (this) {
+
+            entry = this.entries.get(key);
+
+            if (entry != null && entry.generation != generation) {
+
+                this.entries.remove(key);
+                this.rows -= weight(entry.result);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+
+        return entry.result;
+    }
+
+    /**
+     * Caches an unmodifiable result unless the table changed since the
+     * generation was read or the result alone exceeds the budget.
+     */
+    void put(Object key, String tableName, long generation, List<?> result) {
+
+        if (weight(result) > this.maximumRows) {
+            return;
+        }
+
+        synchronized (this) {
+
+            if (this.generation(tableName) != generation) {
+                return;
+            }
+
+            Entry previous = this.entries.put(key, new Entry(tableName, generation, result));
+
+            if (previous != null) {
+                this.rows -= weight(previous.result);
+            }
+
+            this.rows += weight(result);
+
+            Iterator<Entry> iterator = this.entries.values().iterator();
+
+            while (this.rows > this.maximumRows) {
+
+                Entry eldest = iterator.next();
+
+                this.rows -= weight(eldest.result);
+                iterator.remove();
+                this.evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Counts an empty result as one row, so empty results are bounded, too.
+     */
+    private static int weight(List<?> result) {
+        return Math.max(1, result.size());
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class Entry {
+
+        private final String tableName;
+        private final long generation;
+        private final List<?> result;
+
+        private Entry(String tableName, long generation, List<?> result) {
+            this.tableName = tableName;
+            this.generation = generation;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the {@link java.sql.PreparedStatement}s of one
+ * {@link java.sql.Connection} by their SQL text. The least recently used
+ * statement is closed when the cache is full.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class StatementCache {
+
+    private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+    private final Map<String, CachedStatement> entries;
+    private final Map<PreparedStatement, CachedStatement> entriesByStatement;
+
+    StatementCache(int maximumSize) {
+
+        this.entriesByStatement = new IdentityHashMap<>();
+        this.entries = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+
+                if (this.size() <= maximumSize) {
+                    return false;
+                }
+
+                CachedStatement entry = eldest.getValue();
+
+                entry.evicted = true;
+
+                // A statement in use is closed when it is released
+                if (!entry.inUse) {
+                    StatementCache.this.entriesByStatement.remove(entry.statement);
+                    closeQuietly(entry.statement);
+                }
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the SQL text or prepares a new one. If
+     * the cached statement is in use, an uncached statement is prepared.
+     */
+    synchronized PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+
+        CachedStatement entry = this.entries.get(sql);
+
+        if (entry != null && !entry.inUse) {
+
+            if (!entry.statement.isClosed()) {
+                entry.inUse = true;
+                return entry.statement;
+            }
+
+            this.entries.remove(sql);
+            this.entriesByStatement.remove(entry.statement);
+            entry = null;
+        }
+
+        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+
+        if (entry == null) {
+
+            CachedStatement newEntry = new CachedStatement(preparedStatement);
+            newEntry.inUse = true;
+
+            this.entriesByStatement.put(preparedStatement, newEntry);
+            this.entries.put(sql, newEntry);
+        }
+
+        return preparedStatement;
+    }
+
+    /**
+     * Marks a statement as unused again. Uncached or evicted statements are
+     * closed.
+     */
+    synchronized void release(PreparedStatement preparedStatement) {
+
+        CachedStatement entry = this.entriesByStatement.get(preparedStatement);
+
+        if (entry == null) {
+            closeQuietly(preparedStatement);
+            return;
+        }
+
+        entry.inUse = false;
+
+        if (entry.evicted) {
+            this.entriesByStatement.remove(preparedStatement);
+            closeQuietly(preparedStatement);
+        }
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    synchronized void close() {
+
+        for (PreparedStatement preparedStatement : this.entriesByStatement.keySet()) {
+            closeQuietly(preparedStatement);
+        }
+
+        this.entries.clear();
+        this.entriesByStatement.clear();
+    }
+
+    /**
+     * Returns the number of cached statements.
+     */
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    private static void closeQuietly(PreparedStatement preparedStatement) {
+
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Failed to close a cached statement", e);
+        }
+    }
+
+    /**
+     * A cached statement.
+     */
+    private static final class CachedStatement {
+
+        private final PreparedStatement statement;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Works with a {@link java.sql.PreparedStatement} obtained by
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#execute(java.lang.String, xyz.joestr.dbwrapper.StatementCallback)}.
+ *
+ * @param <R> The result
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+@FunctionalInterface
+public interface StatementCallback<R> {
+
+    /**
+     * Binds the parameters, executes the statement and reads the result.
+     *
+     * @param preparedStatement The {@link java.sql.PreparedStatement}
+     * @return The result
+     * @throws SQLException If something SQL relevant fails
+     */
+    public R execute(PreparedStatement preparedStatement) throws SQLException;
+}
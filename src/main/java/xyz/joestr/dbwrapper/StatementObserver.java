@@ -0,0 +1,180 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the statements of a wrapper and reports them to the
+ * {@link xyz.joestr.dbwrapper.DatabaseMetricsListener} and the
+ * {@link xyz.joestr.dbwrapper.DatabaseSlowQueryLog} of the handler. Both are
+ * looked up for every statement, so they can be set or removed at any time;
+ * without them a statement is run as is.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+final class StatementObserver {
+
+    private final DatabaseConnectionHandler databaseConnectionHandler;
+    private final Class<?> clazz;
+    private final String tableName;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.StatementObserver}.
+     *
+     * @param databaseConnectionHandler The
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler}
+     * @param clazz The wrapped {@link java.lang.Class}
+     * @param tableName The name of the table
+     */
+    StatementObserver(DatabaseConnectionHandler databaseConnectionHandler, Class<?> clazz, String tableName) {
+
+        this.databaseConnectionHandler = databaseConnectionHandler;
+        this.clazz = clazz;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Runs a query with parameters and hydrates every row with a mapper. The
+     * execution and the hydration are reported to the handler.
+     */
+    <P> List<P> read(String sql, List<?> parameters, EntityMapper<P> mapper, Consumer<? super P> hydrationListener) throws SQLException {
+
+        DatabaseMetricsListener listener = this.databaseConnectionHandler.getMetricsListener();
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+        boolean timed = listener != null || slowQueryLog != null;
+
+        return this.observe(listener, DatabaseOperation.SELECT, () -> this.databaseConnectionHandler.execute(sql, preparedStatement -> {
+
+            bindParameters(preparedStatement, parameters);
+
+            List<P> result = new ArrayList<>();
+            long start = timed ? System.nanoTime() : 0;
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                long hydrateStart = timed ? System.nanoTime() : 0;
+
+                while (resultSet.next()) {
+
+                    P object = mapper.hydrate(resultSet);
+
+                    if (hydrationListener != null) {
+                        hydrationListener.accept(object);
+                    }
+
+                    result.add(object);
+                }
+
+                if (timed) {
+                    this.report(
+                        listener, slowQueryLog, DatabaseOperation.SELECT, sql, () -> parameters,
+                        hydrateStart - start, System.nanoTime() - hydrateStart, result.size()
+                    );
+                }
+            }
+
+            return result;
+        }));
+    }
+
+    /**
+     * Executes a statement and reports it to the handler. The bind values
+     * are only collected if the statement is logged.
+     */
+    <R> R execute(DatabaseOperation operation, String sql, Supplier<? extends List<?>> parameters, StatementCallback<R> callback) throws SQLException {
+
+        DatabaseMetricsListener listener = this.databaseConnectionHandler.getMetricsListener();
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+
+        if (listener == null && slowQueryLog == null) {
+            return this.databaseConnectionHandler.execute(sql, callback);
+        }
+
+        return this.observe(listener, operation, () -> this.databaseConnectionHandler.execute(sql, preparedStatement -> {
+
+            long start = System.nanoTime();
+            R result = callback.execute(preparedStatement);
+
+            this.report(listener, slowQueryLog, operation, sql, parameters, System.nanoTime() - start, 0, rowCountOf(result));
+
+            return result;
+        }));
+    }
+
+    /**
+     * Reports a finished statement to the metrics listener and the slow
+     * query log of the handler, if any.
+     */
+    void report(DatabaseMetricsListener listener, DatabaseSlowQueryLog slowQueryLog, DatabaseOperation operation, String sql, Supplier<? extends List<?>> parameters, long executeNanos, long hydrateNanos, long rowCount) {
+
+        if (listener != null) {
+            listener.operationExecuted(this.tableName, operation, executeNanos, hydrateNanos, rowCount);
+        }
+
+        if (slowQueryLog != null) {
+            slowQueryLog.record(this.clazz, sql, parameters, executeNanos + hydrateNanos, rowCount);
+        }
+    }
+
+    /**
+     * Runs an action and reports its failure to the metrics listener, if
+     * any.
+     */
+    <R> R observe(DatabaseMetricsListener listener, DatabaseOperation operation, SqlAction<R> action) throws SQLException {
+
+        if (listener == null) {
+            return action.run();
+        }
+
+        try {
+            return action.run();
+        } catch (SQLException | RuntimeException e) {
+
+            listener.operationFailed(this.tableName, operation, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of rows a statement read or wrote by its result.
+     */
+    private static long rowCountOf(Object result) {
+
+        if (result instanceof Integer) {
+            return Math.max(0, (Integer) result);
+        }
+
+        if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        }
+
+        return 1;
+    }
+
+    /**
+     * Binds parameters starting with the first placeholder.
+     */
+    static void bindParameters(PreparedStatement preparedStatement, List<?> parameters) throws SQLException {
+
+        for (int i = 0; i < parameters.size(); i++) {
+
+            preparedStatement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * An action which may fail with a {@link java.sql.SQLException}.
+     */
+    @FunctionalInterface
+    interface SqlAction<R> {
+
+        R run() throws SQLException;
+    }
+}
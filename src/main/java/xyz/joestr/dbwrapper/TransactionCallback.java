@@ -0,0 +1,23 @@
+package xyz.joestr.dbwrapper;
+
+/**
+ * Work which runs in a transaction started by
+ * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#inTransaction(xyz.joestr.dbwrapper.TransactionCallback)}.
+ *
+ * @param <R> The result
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+@FunctionalInterface
+public interface TransactionCallback<R> {
+
+    /**
+     * Does the work. Every wrapper operation of the calling thread uses the
+     * connection of the transaction.
+     *
+     * @param transaction The {@link xyz.joestr.dbwrapper.DatabaseTransaction}
+     * @return The result
+     * @throws Exception If the work fails; the transaction is rolled back
+     */
+    public R execute(DatabaseTransaction transaction) throws Exception;
+}
@@ -0,0 +1,35 @@
+package xyz.joestr.dbwrapper;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link java.sql.SQLException} where a checked exception can not be
+ * thrown, for example while iterating a {@link java.util.stream.Stream}.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.UncheckedSQLException}.
+     *
+     * @param cause The {@link java.sql.SQLException}
+     */
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the wrapped {@link java.sql.SQLException}.
+     *
+     * @return The {@link java.sql.SQLException}
+     */
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
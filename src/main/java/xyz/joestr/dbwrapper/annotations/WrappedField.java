@@ -13,4 +13,12 @@ import java.lang.annotation.RetentionPolicy;
 public @interface WrappedField {
 
     String name();
+
+    /**
+     * Marks the column as (part of) the primary key. Updates and deletes then
+     * match on the key columns only.
+     *
+     * @return {@code true} if the column belongs to the primary key
+     */
+    boolean primaryKey() default false;
 }
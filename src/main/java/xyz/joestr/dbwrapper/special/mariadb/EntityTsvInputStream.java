@@ -0,0 +1,188 @@
+package xyz.joestr.dbwrapper.special.mariadb;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import xyz.joestr.dbwrapper.EntityMapper;
+
+/**
+ * Serializes objects into the tab separated format of
+ * {@code LOAD DATA INFILE} while it is read. Only one row is held in memory
+ * at a time, so any number of objects can be streamed.
+ * <p>
+ * Fields are separated by a tab and rows by a newline. {@code NULL} is written
+ * as {@code \N}; backslash, tab, newline, carriage return and the zero byte
+ * are escaped with a backslash. Text is encoded in UTF-8 and byte arrays are
+ * written as hexadecimal text.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class EntityTsvInputStream<T> extends InputStream {
+
+    private final Iterator<? extends T> objects;
+    private final EntityMapper<T> entityMapper;
+    private final StringBuilder row = new StringBuilder(256);
+    private byte[] buffer = new byte[0];
+    private int position = 0;
+    private long rowCount = 0;
+    private long byteCount = 0;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.special.mariadb.EntityTsvInputStream}.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}, consumed
+     * while the stream is read
+     * @param entityMapper The {@link xyz.joestr.dbwrapper.EntityMapper} which
+     * defines the columns
+     */
+    public EntityTsvInputStream(Iterator<? extends T> objects, EntityMapper<T> entityMapper) {
+
+        this.objects = objects;
+        this.entityMapper = entityMapper;
+    }
+
+    @Override
+    public int read() {
+
+        if (!this.fill()) {
+            return -1;
+        }
+
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+
+        if (length == 0) {
+            return 0;
+        }
+
+        int read = 0;
+
+        while (read < length && this.fill()) {
+
+            int count = Math.min(length - read, this.buffer.length - this.position);
+
+            System.arraycopy(this.buffer, this.position, bytes, offset + read, count);
+
+            this.position += count;
+            read += count;
+        }
+
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.length - this.position;
+    }
+
+    /**
+     * Returns the number of serialized rows.
+     *
+     * @return A {@code long}
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * Returns the number of serialized bytes.
+     *
+     * @return A {@code long}
+     */
+    public long getByteCount() {
+        return this.byteCount;
+    }
+
+    /**
+     * Serializes the next object if the current row is consumed.
+     */
+    private boolean fill() {
+
+        if (this.position < this.buffer.length) {
+            return true;
+        }
+
+        if (!this.objects.hasNext()) {
+            return false;
+        }
+
+        T object = this.objects.next();
+
+        this.row.setLength(0);
+
+        for (int i = 0; i < this.entityMapper.size(); i++) {
+
+            if (i > 0) {
+                this.row.append('\t');
+            }
+
+            appendValue(this.row, this.entityMapper.get(object, i));
+        }
+
+        this.row.append('\n');
+
+        this.buffer = this.row.toString().getBytes(StandardCharsets.UTF_8);
+        this.position = 0;
+        this.rowCount++;
+        this.byteCount += this.buffer.length;
+
+        return true;
+    }
+
+    private static void appendValue(StringBuilder stringBuilder, Object value) {
+
+        if (value == null) {
+            stringBuilder.append("\\N");
+            return;
+        }
+
+        if (value instanceof Boolean) {
+            stringBuilder.append((Boolean) value ? '1' : '0');
+            return;
+        }
+
+        if (value instanceof byte[]) {
+
+            // Bytes are written as hexadecimal text, which MariaDBBulkLoader decodes with UNHEX()
+            for (byte b : (byte[]) value) {
+                stringBuilder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return;
+        }
+
+        String text = value instanceof LocalDateTime ? value.toString().replace('T', ' ') : value.toString();
+
+        for (int i = 0; i < text.length(); i++) {
+
+            char c = text.charAt(i);
+
+            switch (c) {
+                case '\\':
+                    stringBuilder.append("\\\\");
+                    break;
+                case '\t':
+                    stringBuilder.append("\\t");
+                    break;
+                case '\n':
+                    stringBuilder.append("\\n");
+                    break;
+                case '\r':
+                    stringBuilder.append("\\r");
+                    break;
+                case '\0':
+                    stringBuilder.append("\\0");
+                    break;
+                default:
+                    stringBuilder.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package xyz.joestr.dbwrapper.special.mariadb;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import xyz.joestr.dbwrapper.AbstractDatabaseWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Loads objects with {@code LOAD DATA LOCAL INFILE}, which is much faster
+ * than batched {@code INSERT}s for large amounts of rows. The objects are
+ * serialized while the driver sends them, without a temporary file.
+ * <p>
+ * The connection string must allow local files, e.g. with
+ * {@code allowLocalInfile=true}, and the server needs {@code local_infile}
+ * enabled. As for every {@code LOCAL} load, rows with a duplicate key are
+ * skipped with a warning instead of failing the load; they are reported as
+ * rejected.
+ *
+ * @param <T> The wrapped class
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class MariaDBBulkLoader<T> {
+
+    private final AbstractDatabaseWrapper<T> wrapper;
+    private final String sql;
+
+    /**
+     * Creates a new instance of the
+     * {@link xyz.joestr.dbwrapper.special.mariadb.MariaDBBulkLoader}.
+     *
+     * @param wrapper The wrapper whose table and columns are loaded
+     */
+    public MariaDBBulkLoader(AbstractDatabaseWrapper<T> wrapper) {
+
+        if (wrapper == null) {
+            throw new NullPointerException("wrapper can not be null!");
+        }
+
+        this.wrapper = wrapper;
+
+        List<String> columns = new ArrayList<>();
+        List<String> assignments = new ArrayList<>();
+
+        for (int i = 0; i < wrapper.getColumnNames().size(); i++) {
+
+            String columnName = wrapper.getColumnNames().get(i);
+
+            // Bytes are sent as hexadecimal text and decoded by the server
+            if (wrapper.getEntityMapper().getColumnType(i) == byte[].class) {
+                columns.add("@v" + i);
+                assignments.add(columnName + " = UNHEX(@v" + i + ")");
+            } else {
+                columns.add(columnName);
+            }
+        }
+
+        this.sql = "LOAD DATA LOCAL INFILE 'dbwrapper.tsv' INTO TABLE " + wrapper.getTableName()
+            + " CHARACTER SET utf8mb4"
+            + " FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'"
+            + " LINES TERMINATED BY '\\n'"
+            + " (" + String.join(", ", columns) + ")"
+            + (assignments.isEmpty() ? "" : " SET " + String.join(", ", assignments));
+    }
+
+    /**
+     * Loads all objects of a stream and closes it.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The {@link xyz.joestr.dbwrapper.special.mariadb.MariaDBBulkLoader.Result}
+     * @throws SQLException If something SQL relevant fails or the driver can
+     * not stream local files
+     */
+    public Result load(Stream<? extends T> objects) throws SQLException {
+
+        try (Stream<? extends T> stream = objects) {
+            return this.load(stream.iterator());
+        }
+    }
+
+    /**
+     * Loads all objects.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The {@link xyz.joestr.dbwrapper.special.mariadb.MariaDBBulkLoader.Result}
+     * @throws SQLException If something SQL relevant fails or the driver can
+     * not stream local files
+     */
+    public Result load(Iterable<? extends T> objects) throws SQLException {
+
+        return this.load(objects.iterator());
+    }
+
+    /**
+     * Loads all remaining objects of an iterator.
+     *
+     * @param objects The objects of {@link java.lang.reflect.Type}
+     * @return The {@link xyz.joestr.dbwrapper.special.mariadb.MariaDBBulkLoader.Result}
+     * @throws SQLException If something SQL relevant fails or the driver can
+     * not stream local files
+     */
+    public Result load(Iterator<? extends T> objects) throws SQLException {
+
+        EntityTsvInputStream<T> inputStream = new EntityTsvInputStream<>(objects, this.wrapper.getEntityMapper());
+        DatabaseConnectionHandler databaseConnectionHandler = this.wrapper.getDatabaseConnectionHandler();
+
+        long start = System.nanoTime();
+        int loadedCount;
+        int warningCount = 0;
+
+        Connection connection = databaseConnectionHandler.acquireConnection();
+
+        try (Statement statement = connection.createStatement()) {
+
+            setLocalInfileInputStream(statement, inputStream);
+
+            loadedCount = statement.executeUpdate(this.sql);
+
+            for (SQLWarning warning = statement.getWarnings(); warning != null; warning = warning.getNextWarning()) {
+                warningCount++;
+            }
+        } finally {
+            databaseConnectionHandler.releaseConnection(connection);
+        }
+
+        return new Result(
+            inputStream.getRowCount(), loadedCount, warningCount, inputStream.getByteCount(), System.nanoTime() - start
+        );
+    }
+
+    /**
+     * Returns the {@code LOAD DATA} statement.
+     *
+     * @return A {@link java.lang.String}
+     */
+    public String getSql() {
+        return this.sql;
+    }
+
+    /**
+     * Hands the stream to the driver. The method is not part of JDBC, but
+     * MariaDB Connector/J and MySQL Connector/J both offer it.
+     */
+    private static void setLocalInfileInputStream(Statement statement, InputStream inputStream) throws SQLException {
+
+        for (Method method : statement.getClass().getMethods()) {
+
+            if (!method.getName().equals("setLocalInfileInputStream")
+                || method.getParameterCount() != 1
+                || method.getParameterTypes()[0] != InputStream.class) {
+                continue;
+            }
+
+            try {
+                method.setAccessible(true);
+                method.invoke(statement, inputStream);
+                return;
+            } catch (InvocationTargetException e) {
+
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+
+                throw new SQLException(e.getCause());
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new SQLFeatureNotSupportedException("setLocalInfileInputStream is not accessible", e);
+            }
+        }
+
+        throw new SQLFeatureNotSupportedException(
+            statement.getClass().getName() + " can not stream LOAD DATA LOCAL INFILE"
+        );
+    }
+
+    /**
+     * The outcome of a load.
+     */
+    public static final class Result {
+
+        private final long rowCount;
+        private final long loadedCount;
+        private final int warningCount;
+        private final long byteCount;
+        private final long elapsedNanos;
+
+        private Result(long rowCount, long loadedCount, int warningCount, long byteCount, long elapsedNanos) {
+            this.rowCount = rowCount;
+            this.loadedCount = loadedCount;
+            this.warningCount = warningCount;
+            this.byteCount = byteCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the number of sent rows.
+         *
+         * @return A {@code long}
+         */
+        public long getRowCount() {
+            return this.rowCount;
+        }
+
+        /**
+         * Returns the number of rows the server stored.
+         *
+         * @return A {@code long}
+         */
+        public long getLoadedCount() {
+            return this.loadedCount;
+        }
+
+        /**
+         * Returns the number of sent rows the server did not store.
+         *
+         * @return A {@code long}
+         */
+        public long getRejectedCount() {
+            return Math.max(0, this.rowCount - this.loadedCount);
+        }
+
+        /**
+         * Returns the number of warnings the server reported, e.g. for
+         * truncated values or skipped duplicates. The driver may limit the
+         * number of transferred warnings.
+         *
+         * @return An {@code int}
+         */
+        public int getWarningCount() {
+            return this.warningCount;
+        }
+
+        /**
+         * Returns the number of sent bytes.
+         *
+         * @return A {@code long}
+         */
+        public long getByteCount() {
+            return this.byteCount;
+        }
+
+        /**
+         * Returns the duration of the load.
+         *
+         * @param unit The {@link java.util.concurrent.TimeUnit} of the result
+         * @return A {@code long}
+         */
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(this.elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the number of sent rows per second.
+         *
+         * @return A {@code double}
+         */
+        public double getRowsPerSecond() {
+            return this.elapsedNanos == 0 ? 0 : this.rowCount * 1_000_000_000d / this.elapsedNanos;
+        }
+    }
+}
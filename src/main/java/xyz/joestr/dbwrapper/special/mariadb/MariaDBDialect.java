@@ -0,0 +1,73 @@
+package xyz.joestr.dbwrapper.special.mariadb;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+import xyz.joestr.dbwrapper.DatabaseDialect;
+
+/**
+ * The {@link xyz.joestr.dbwrapper.DatabaseDialect} of MariaDB and MySQL.
+ * <p>
+ * MariaDB Connector/J streams rows if a fetch size is set on a forward-only
+ * result set. MySQL Connector/J only streams with a fetch size of
+ * {@link java.lang.Integer#MIN_VALUE}, which then reads one row at a time.
+ *
+ * @author Joel Strasser (joestr)
+ * @version ${project.version}
+ */
+public class MariaDBDialect implements DatabaseDialect {
+
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int maximumParameterCount() {
+        return 65535;
+    }
+
+    @Override
+    public String limitClause() {
+        return " LIMIT ?";
+    }
+
+    @Override
+    public void configureStreaming(PreparedStatement preparedStatement, int fetchSize) throws SQLException {
+
+        String driverName = preparedStatement.getConnection().getMetaData().getDriverName();
+
+        if (driverName != null && driverName.startsWith("MySQL")) {
+
+            preparedStatement.setFetchSize(Integer.MIN_VALUE);
+            return;
+        }
+
+        preparedStatement.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Renders {@code INSERT ... ON DUPLICATE KEY UPDATE} which overwrites
+     * every column except the key columns.
+     */
+    @Override
+    public String upsertSql(String tableName, List<String> columnNames, List<String> keyColumnNames) {
+
+        List<String> updatedColumnNames = columnNames.stream()
+            .filter(columnName -> !keyColumnNames.contains(columnName))
+            .collect(Collectors.toList());
+
+        // Without other columns the key is assigned to itself
+        if (updatedColumnNames.isEmpty()) {
+            updatedColumnNames = keyColumnNames.subList(0, 1);
+        }
+
+        return "INSERT INTO " + tableName + "(" + String.join(", ", columnNames) + ") VALUES("
+            + columnNames.stream().map(columnName -> "?").collect(Collectors.joining(", ")) + ")"
+            + " ON DUPLICATE KEY UPDATE "
+            + updatedColumnNames.stream()
+                .map(columnName -> columnName + "=VALUES(" + columnName + ")")
+                .collect(Collectors.joining(", "));
+    }
+}
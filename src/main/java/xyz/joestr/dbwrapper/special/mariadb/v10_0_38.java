@@ -1,10 +1,14 @@
 package xyz.joestr.dbwrapper.special.mariadb;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
 import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+import xyz.joestr.dbwrapper.DatabaseSlowQueryLog;
+import xyz.joestr.dbwrapper.TransactionCallback;
 
 /**
  * Holds special functionality for MariaDB v10.0.38.
@@ -20,51 +24,65 @@ public class v10_0_38 {
     }
 
     /**
-     * Disables foreign key checks.
+     * Runs a callback in a transaction whose connection has the foreign key
+     * checks disabled. The checks are enabled again on the same connection
+     * before it is given back, even if the callback fails, so no other
+     * operation sees them disabled.
      *
-     * @return {@code true} if successfull; {@code false} if not
-     * @throws SQLException If something SQL relevant fails
+     * @param <R> The result
+     * @param callback The {@link xyz.joestr.dbwrapper.TransactionCallback}
+     * @return The result of the callback
+     * @throws SQLException If something SQL relevant fails or the callback
+     * throws a checked exception, which becomes the cause
      */
-    public boolean disableForeignKeyChecks() throws SQLException {
+    public <R> R withoutForeignKeyChecks(TransactionCallback<R> callback) throws SQLException {
 
-        boolean result = true;
+        if (callback == null) {
+            throw new NullPointerException("callback can not be null!");
+        }
 
-        // Connect
-        this.databaseConnectionHandler.connect();
+        return this.databaseConnectionHandler.inTransaction(transaction -> {
 
-        // No possible SQL-Injection here, so we can use a statement
-        Statement statement = this.databaseConnectionHandler.getConnection().createStatement();
+            this.setForeignKeyChecks(false);
 
-        result = statement.execute("SET FOREIGN_KEY_CHECKS = 0;");
+            try {
+                return callback.execute(transaction);
+            } finally {
+                this.setForeignKeyChecks(true);
+            }
+        });
+    }
 
-        // Disconnect
-        this.databaseConnectionHandler.disconnect();
+    /**
+     * Disables foreign key checks. The setting belongs to the connection, so
+     * on a pooled handler this must be called inside of
+     * {@link xyz.joestr.dbwrapper.DatabaseConnectionHandler#inTransaction(xyz.joestr.dbwrapper.TransactionCallback)}
+     * and the checks must be enabled again before it ends; else the pool
+     * would hand the connection to unrelated operations. Prefer
+     * {@link #withoutForeignKeyChecks(xyz.joestr.dbwrapper.TransactionCallback)}.
+     *
+     * @return {@code true} if successfull; {@code false} if not
+     * @throws IllegalStateException If the handler is pooled and the calling
+     * thread is not in a transaction
+     * @throws SQLException If something SQL relevant fails
+     */
+    public boolean disableForeignKeyChecks() throws SQLException {
 
-        return result;
+        return this.setForeignKeyChecks(false);
     }
 
     /**
-     * Enables foreign key checks.
+     * Enables foreign key checks. On a pooled handler this must be called
+     * inside of the transaction which disabled them.
      *
      * @return {@code true} if successfull; {@code false} if not
+     * @throws IllegalStateException If the handler is pooled and the calling
+     * thread is not in a transaction
      * @throws SQLException If something SQL relevant fails
      */
     public boolean enableForeignKeyCheck() throws SQLException {
 
-        boolean result = true;
-
-        // Connect
-        this.databaseConnectionHandler.connect();
-
-        // No possible SQL-Injection here, so we can use a statement
-        Statement statement = this.databaseConnectionHandler.getConnection().createStatement();
-
-        result = statement.execute("SET FOREIGN_KEY_CHECKS = 1;");
-
-        // Disconnect
-        this.databaseConnectionHandler.disconnect();
-
-        return result;
+        return this.setForeignKeyChecks(true);
     }
 
     /**
@@ -78,35 +96,43 @@ public class v10_0_38 {
         String[] result = null;
 
         // Connect
-        this.databaseConnectionHandler.connect();
-
-        // Possible SQL-Injection here, so we have to use a prepared statement
-        PreparedStatement tableNamesStatement
-            = this.databaseConnectionHandler.getConnection().prepareStatement(
-                "SELECT `table_name` FROM `information_schema`.`tables` WHERE `table_schema` = '"
-                + this.databaseConnectionHandler.getConnection().getCatalog()
-                + "';"
-            );
+        Connection connection = this.databaseConnectionHandler.acquireConnection();
 
-        // The table names
-        ResultSet tableNames = tableNamesStatement.executeQuery();
+        try {
+            // Possible SQL-Injection here, so we have to use a prepared statement
+            String sql = "SELECT `table_name` FROM `information_schema`.`tables` WHERE `table_schema` = '"
+                + connection.getCatalog()
+                + "';";
 
-        int rowcount = 0;
+            long start = System.nanoTime();
 
-        if (tableNames.last()) {
-            rowcount = tableNames.getRow();
-            tableNames.beforeFirst(); // not #first() because the #next() below will move on, missing the first element
-        }
+            // The table names
+            try (PreparedStatement tableNamesStatement = connection.prepareStatement(sql);
+                ResultSet tableNames = tableNamesStatement.executeQuery()) {
+
+                int rowcount = 0;
 
-        result = new String[rowcount];
+                if (tableNames.last()) {
+                    rowcount = tableNames.getRow();
+                    tableNames.beforeFirst(); // not #first() because the #next() below will move on, missing the first element
+                }
 
-        int count = 0;
+                result = new String[rowcount];
 
-        while (tableNames.next()) {
+                int count = 0;
 
-            result[count] = tableNames.getString(1);
+                while (tableNames.next()) {
 
-            count++;
+                    result[count] = tableNames.getString(1);
+
+                    count++;
+                }
+
+                this.recordStatement(sql, start, rowcount);
+            }
+        } finally {
+            // Disconnect
+            this.databaseConnectionHandler.releaseConnection(connection);
         }
 
         return result;
@@ -125,19 +151,24 @@ public class v10_0_38 {
         boolean result = true;
 
         // Connect
-        this.databaseConnectionHandler.connect();
+        Connection connection = this.databaseConnectionHandler.acquireConnection();
 
-        // Possible SQL-Injection here, so we have to use a prepared statement
-        PreparedStatement dropTableStatement
-            = this.databaseConnectionHandler.getConnection().prepareStatement(
-                "DROP TABLE `" + tableName + "`;"
-            );
+        try {
+            // Possible SQL-Injection here, so we have to use a prepared statement
+            String sql = "DROP TABLE `" + tableName + "`;";
 
-        // The table names
-        result = dropTableStatement.execute();
+            try (PreparedStatement dropTableStatement = connection.prepareStatement(sql)) {
 
-        // Disconnect
-        this.databaseConnectionHandler.disconnect();
+                long start = System.nanoTime();
+
+                result = dropTableStatement.execute();
+
+                this.recordStatement(sql, start, 0);
+            }
+        } finally {
+            // Disconnect
+            this.databaseConnectionHandler.releaseConnection(connection);
+        }
 
         return result;
     }
@@ -161,4 +192,52 @@ public class v10_0_38 {
 
         return result;
     }
+
+    /**
+     * Sets the foreign key checks of the connection the calling thread uses.
+     */
+    private boolean setForeignKeyChecks(boolean enabled) throws SQLException {
+
+        // A pooled connection would go back to the pool with the setting
+        if (this.databaseConnectionHandler.getConnectionPool() != null
+            && this.databaseConnectionHandler.getTransaction() == null) {
+
+            throw new IllegalStateException(
+                "Foreign key checks of a pooled handler can only be changed inside of a transaction!"
+            );
+        }
+
+        String sql = enabled ? "SET FOREIGN_KEY_CHECKS = 1;" : "SET FOREIGN_KEY_CHECKS = 0;";
+
+        // Connect
+        Connection connection = this.databaseConnectionHandler.acquireConnection();
+
+        try (Statement statement = connection.createStatement()) {
+
+            // No possible SQL-Injection here, so we can use a statement
+            long start = System.nanoTime();
+
+            boolean result = statement.execute(sql);
+
+            this.recordStatement(sql, start, 0);
+
+            return result;
+        } finally {
+            // Disconnect
+            this.databaseConnectionHandler.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Hands a finished statement to the slow query log of the handler, if
+     * any. The statements of this class have no bind values.
+     */
+    private void recordStatement(String sql, long start, long rowCount) {
+
+        DatabaseSlowQueryLog slowQueryLog = this.databaseConnectionHandler.getSlowQueryLog();
+
+        if (slowQueryLog != null) {
+            slowQueryLog.record(v10_0_38.class, sql, Collections::emptyList, System.nanoTime() - start, rowCount);
+        }
+    }
 }
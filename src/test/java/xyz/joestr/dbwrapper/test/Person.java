@@ -0,0 +1,50 @@
+package xyz.joestr.dbwrapper.test;
+
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+import xyz.joestr.dbwrapper.annotations.WrappedTable;
+
+/**
+ *
+ * @author Joel
+ */
+@WrappedTable(name = "person")
+public class Person {
+
+    @WrappedField(name = "id", primaryKey = true)
+    private int id;
+
+    @WrappedField(name = "name")
+    private String name;
+
+    @WrappedField(name = "age")
+    private Integer age;
+
+    public Person() {
+    }
+
+    public Person(int id, String name, Integer age) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+}
@@ -0,0 +1,17 @@
+package xyz.joestr.dbwrapper.test;
+
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+
+/**
+ *
+ * @author Joel
+ */
+public class PersonName {
+
+    @WrappedField(name = "name")
+    private String name;
+
+    public String getName() {
+        return name;
+    }
+}
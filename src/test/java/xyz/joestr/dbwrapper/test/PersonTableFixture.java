@@ -0,0 +1,62 @@
+package xyz.joestr.dbwrapper.test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ * Creates a fresh in-memory database with a {@code person} table and a
+ * pooled handler and wrapper for every test.
+ *
+ * @author Joel
+ */
+public abstract class PersonTableFixture {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    protected DatabaseConnectionHandler handler;
+    protected DatabaseAnnotationWrapper<Person> wrapper;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = new DatabaseConnectionHandler(newConnectionString(""), 1, 4);
+
+        createPersonTable(handler);
+
+        wrapper = new DatabaseAnnotationWrapper<>(Person.class, handler);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        handler.close();
+    }
+
+    /**
+     * Returns the connection string of a new, empty database.
+     */
+    protected static String newConnectionString(String options) {
+        return "jdbc:h2:mem:person" + DATABASES.incrementAndGet() + options + ";DB_CLOSE_DELAY=-1";
+    }
+
+    protected static void createPersonTable(DatabaseConnectionHandler handler) throws SQLException {
+        execute(handler, "CREATE TABLE person (id INT PRIMARY KEY, name VARCHAR(64), age INT)");
+    }
+
+    /**
+     * Runs a statement past the wrapper, as another application would.
+     */
+    protected static void execute(DatabaseConnectionHandler handler, String sql) throws SQLException {
+        Connection connection = handler.acquireConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            handler.releaseConnection(connection);
+        }
+    }
+}
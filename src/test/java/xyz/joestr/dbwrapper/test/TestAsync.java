@@ -0,0 +1,92 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseWriteBehindBuffer;
+
+/**
+ * Checks the asynchronous operations and the write-behind buffer.
+ *
+ * @author Joel
+ */
+public class TestAsync extends PersonTableFixture {
+
+    @Test
+    public void asyncOperationsCompleteFutures() throws Exception {
+        List<CompletableFuture<Integer>> inserts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            inserts.add(wrapper.insertAsync(new Person(i, "Person " + i, i)));
+        }
+        CompletableFuture.allOf(inserts.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(20, wrapper.selectAsync().get(10, TimeUnit.SECONDS).size());
+        assertEquals("Person 7", wrapper.findByIdAsync(7).get(10, TimeUnit.SECONDS).getName());
+
+        try {
+            wrapper.insertAsync(new Person(7, "duplicate", 0)).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+
+    @Test
+    public void asyncConcurrencyIsBounded() throws Exception {
+        handler.setMaximumAsyncConcurrency(2);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maximum = new AtomicInteger();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            futures.add(handler.executeAsync(() -> {
+                maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertTrue(maximum.get() <= 2);
+        assertEquals(0, handler.getQueuedAsyncTaskCount());
+    }
+
+    @Test
+    public void writeBehindBufferCoalescesAndFlushes() throws Exception {
+        DatabaseWriteBehindBuffer<Person> buffer = new DatabaseWriteBehindBuffer<>(wrapper, 100, 10, 1, TimeUnit.HOURS);
+
+        for (int i = 0; i < 25; i++) {
+            buffer.insert(new Person(i, "Person " + i, i));
+        }
+        for (int age = 100; age < 103; age++) {
+            buffer.update(new Person(30, "Person 30", age));
+        }
+        buffer.insert(new Person(30, "Person 30", 0));
+
+        // Batches of ten are flushed without waiting for the interval
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (buffer.getWrittenCount() < 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(buffer.getWrittenCount() >= 20);
+
+        buffer.close();
+
+        assertEquals(2, buffer.getCoalescedCount());
+        assertEquals(0, buffer.getQueuedCount());
+        assertEquals(0, buffer.getFailedCount());
+        assertEquals(26, wrapper.select().size());
+    }
+}
@@ -0,0 +1,112 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+import xyz.joestr.dbwrapper.EntityMapper;
+import xyz.joestr.dbwrapper.special.mariadb.EntityTsvInputStream;
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+import xyz.joestr.dbwrapper.annotations.WrappedTable;
+import xyz.joestr.dbwrapper.special.mariadb.MariaDBBulkLoader;
+
+/**
+ *
+ * @author Joel
+ */
+public class TestBulkLoader {
+
+    @Test
+    public void objectsAreStreamedAsEscapedTsv() throws Exception {
+
+        EntityMapper<Person> mapper = new EntityMapper<>(Person.class, Arrays.asList("id", "name", "age"));
+
+        EntityTsvInputStream<Person> inputStream = new EntityTsvInputStream<>(
+            Arrays.asList(
+                new Person(1, "Tab\tNew\nLine\\", 30),
+                new Person(2, "Jürgen", null)
+            ).iterator(),
+            mapper
+        );
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[5];
+        int read;
+
+        while ((read = inputStream.read(buffer, 0, buffer.length)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+
+        assertEquals(
+            "1\tTab\\tNew\\nLine\\\\\t30\n2\tJürgen\t\\N\n",
+            new String(outputStream.toByteArray(), StandardCharsets.UTF_8)
+        );
+        assertEquals(2, inputStream.getRowCount());
+        assertEquals(outputStream.size(), inputStream.getByteCount());
+
+        EntityTsvInputStream<Document> documents = new EntityTsvInputStream<>(
+            Arrays.asList(
+                new Document(1, new byte[]{0, 9, 10, (byte) 0xFF}),
+                new Document(2, null)
+            ).iterator(),
+            new EntityMapper<>(Document.class, Arrays.asList("id", "data"))
+        );
+
+        outputStream.reset();
+
+        while ((read = documents.read(buffer, 0, buffer.length)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+
+        assertEquals("1\t00090aff\n2\t\\N\n", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void binaryColumnsAreDecodedWithUnhex() throws Exception {
+        try (DatabaseConnectionHandler handler = new DatabaseConnectionHandler("jdbc:h2:mem:bulk")) {
+
+            MariaDBBulkLoader<Document> loader = new MariaDBBulkLoader<>(
+                new DatabaseAnnotationWrapper<>(Document.class, handler)
+            );
+
+            assertTrue(loader.getSql(), loader.getSql().endsWith(" (id, @v1) SET data = UNHEX(@v1)"));
+        }
+    }
+
+    @Test(expected = SQLFeatureNotSupportedException.class)
+    public void driverWithoutLocalInfileStreamIsRejected() throws Exception {
+        try (DatabaseConnectionHandler handler = new DatabaseConnectionHandler("jdbc:h2:mem:bulk")) {
+
+            MariaDBBulkLoader<Person> loader = new MariaDBBulkLoader<>(
+                new DatabaseAnnotationWrapper<>(Person.class, handler)
+            );
+
+            loader.load(Arrays.asList(new Person(1, "Joel", 20)));
+        }
+    }
+
+    @WrappedTable(name = "document")
+    public static class Document {
+
+        @WrappedField(name = "id", primaryKey = true)
+        private int id;
+
+        @WrappedField(name = "data")
+        private byte[] data;
+
+        public Document() {
+        }
+
+        public Document(int id, byte[] data) {
+            this.id = id;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseDialect;
+
+/**
+ * Checks batched and multi-row writes.
+ *
+ * @author Joel
+ */
+public class TestBulkOperations extends PersonTableFixture {
+
+    @Test
+    public void bulkOperationsRunInBatches() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            persons.add(new Person(i, "Person " + i, i));
+        }
+
+        int[] inserted = wrapper.insertAll(persons, 10);
+        assertEquals(25, inserted.length);
+        assertEquals(25, wrapper.select().size());
+
+        List<Person> older = new ArrayList<>();
+        for (Person person : persons) {
+            older.add(new Person(person.getId(), person.getName(), person.getAge() + 1));
+        }
+
+        int[] updated = wrapper.updateAll(persons, older, 7);
+        assertEquals(1, updated[24]);
+        assertEquals(Integer.valueOf(25), wrapper.select("id = 24").iterator().next().getAge());
+
+        int[] deleted = wrapper.deleteAll(older.subList(0, 5));
+        assertEquals(5, deleted.length);
+        assertEquals(20, wrapper.select().size());
+    }
+
+    @Test
+    public void multiRowInsert() throws Exception {
+        handler.setDialect(new DatabaseDialect() {
+            @Override
+            public boolean supportsMultiRowInsert() {
+                return true;
+            }
+        });
+        wrapper.setMultiRowInsert(true);
+
+        int[] inserted = wrapper.insertAll(
+            Arrays.asList(new Person(1, "A", 1), new Person(2, "B", 2), new Person(3, "C", 3)), 2
+        );
+
+        assertEquals(1, inserted[2]);
+        assertEquals(3, wrapper.select().size());
+    }
+}
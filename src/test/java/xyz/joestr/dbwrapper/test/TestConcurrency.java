@@ -0,0 +1,246 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+import xyz.joestr.dbwrapper.DatabaseCriteria;
+
+/**
+ * Runs many threads against one shared handler and wrapper.
+ *
+ * @author Joel
+ */
+public class TestConcurrency {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    private DatabaseConnectionHandler handler;
+
+    @After
+    public void tearDown() throws SQLException {
+        handler.close();
+    }
+
+    @Test
+    public void pooledHandlerHasNoCrossTalk() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase(), 1, 4);
+
+        runWorkload(createWrapper());
+
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+    }
+
+    @Test
+    public void persistentHandlerHasNoCrossTalk() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+        handler.setPersistentConnection(true);
+
+        runWorkload(createWrapper());
+    }
+
+    @Test
+    public void unpooledHandlerHasNoCrossTalk() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+
+        runWorkload(createWrapper());
+    }
+
+    @Test
+    public void persistentConnectionsAreConfinedToThreads() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+        handler.setPersistentConnection(true);
+
+        Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(thread -> {
+            Connection first = handler.acquireConnection();
+            handler.releaseConnection(first);
+            Connection second = handler.acquireConnection();
+            handler.releaseConnection(second);
+
+            assertSame(first, second);
+            connections.add(first);
+        });
+
+        assertEquals(THREADS, connections.size());
+    }
+
+    @Test
+    public void disconnectOnlyClosesTheOwnConnection() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+
+        handler.connect();
+        Connection own = handler.getConnection();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Connection other = executor.submit(() -> {
+                handler.connect();
+                Connection connection = handler.getConnection();
+                handler.disconnect();
+                return connection;
+            }).get(10, TimeUnit.SECONDS);
+
+            assertNotSame(own, other);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertFalse(own.isClosed());
+        handler.disconnect();
+    }
+
+    @Test
+    public void asyncTasksCloseTheirPersistentConnections() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+        handler.setPersistentConnection(true);
+        DatabaseAnnotationWrapper<Person> wrapper = createWrapper();
+
+        List<CompletableFuture<Connection>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Person person = new Person(i, "Person " + i, i);
+            futures.add(handler.executeAsync(() -> {
+                wrapper.insert(person);
+                return handler.getConnection();
+            }));
+        }
+
+        for (CompletableFuture<Connection> future : futures) {
+            Connection connection = future.get(10, TimeUnit.SECONDS);
+            assertNotNull(connection);
+            assertTrue(connection.isClosed());
+        }
+
+        assertEquals(20, wrapper.select().size());
+    }
+
+    @Test
+    public void connectionOfEndedThreadIsClosed() throws Exception {
+        handler = new DatabaseConnectionHandler(newDatabase());
+        handler.setPersistentConnection(true);
+
+        AtomicReference<Connection> abandoned = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                Connection connection = handler.acquireConnection();
+                handler.releaseConnection(connection);
+                abandoned.set(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        thread.join(10_000);
+
+        assertFalse(abandoned.get().isClosed());
+
+        Connection own = handler.acquireConnection();
+        handler.releaseConnection(own);
+
+        assertTrue(abandoned.get().isClosed());
+        assertFalse(own.isClosed());
+    }
+
+    /**
+     * Every thread writes and reads its own rows and checks that it sees
+     * exactly them.
+     */
+    private void runWorkload(DatabaseAnnotationWrapper<Person> wrapper) throws Exception {
+        runConcurrently(thread -> {
+            DatabaseCriteria own = new DatabaseCriteria().equal("age", thread);
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                int id = thread * 100_000 + i;
+
+                wrapper.insert(new Person(id, "Person " + id, thread));
+                wrapper.update(new Person(id, "Updated " + id, thread));
+
+                Person person = wrapper.findById(id);
+                assertEquals("Updated " + id, person.getName());
+
+                Collection<Person> persons = wrapper.select(own);
+                assertEquals(i + 1, persons.size());
+                for (Person p : persons) {
+                    assertEquals(Integer.valueOf(thread), p.getAge());
+                }
+            }
+
+            List<Person> persons = new ArrayList<>(wrapper.select(own));
+            assertEquals(ITERATIONS, wrapper.deleteAll(persons).length);
+            assertEquals(0, wrapper.select(own).size());
+        });
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DatabaseAnnotationWrapper<Person> createWrapper() throws Exception {
+        Connection connection = handler.acquireConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id INT PRIMARY KEY, name VARCHAR(64), age INT)");
+        } finally {
+            handler.releaseConnection(connection);
+        }
+
+        return new DatabaseAnnotationWrapper<>(Person.class, handler);
+    }
+
+    private static String newDatabase() {
+        return "jdbc:h2:mem:concurrency" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+
+        void run(int thread) throws Exception;
+    }
+}
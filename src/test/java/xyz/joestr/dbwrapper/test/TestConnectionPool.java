@@ -0,0 +1,57 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseConnectionPool;
+
+/**
+ *
+ * @author Joel
+ */
+public class TestConnectionPool {
+
+    private static final String CONNECTION_STRING = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void releasedConnectionIsReused() throws SQLException {
+        try (DatabaseConnectionPool pool = new DatabaseConnectionPool(CONNECTION_STRING, 0, 2)) {
+
+            Connection first = pool.acquire();
+            pool.release(first);
+
+            Connection second = pool.acquire();
+            pool.release(second);
+
+            assertSame(first, second);
+            assertEquals(1, pool.getTotalConnections());
+        }
+    }
+
+    @Test
+    public void acquireTimesOutWhenExhausted() throws SQLException {
+        try (DatabaseConnectionPool pool = new DatabaseConnectionPool(CONNECTION_STRING, 0, 1)) {
+
+            pool.setAcquireTimeout(50L);
+
+            Connection connection = pool.acquire();
+
+            try {
+                pool.acquire();
+                fail("Expected a timeout");
+            } catch (SQLTimeoutException e) {
+                // expected
+            } finally {
+                pool.release(connection);
+            }
+
+            assertEquals(0, pool.getLeasedConnections());
+        }
+    }
+}
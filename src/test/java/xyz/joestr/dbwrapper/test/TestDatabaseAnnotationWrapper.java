@@ -0,0 +1,86 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+
+/**
+ * Runs the basic operations of the wrapper against an in-memory database.
+ *
+ * @author Joel
+ */
+public class TestDatabaseAnnotationWrapper extends PersonTableFixture {
+
+    @Test
+    public void insertSelectUpdateDelete() throws Exception {
+        assertEquals(1, wrapper.insert(new Person(1, "Alice", 30)));
+        assertEquals(1, wrapper.insert(new Person(2, "Bob", null)));
+
+        Collection<Person> persons = wrapper.select("id = 2");
+        assertEquals(1, persons.size());
+
+        Person bob = persons.iterator().next();
+        assertEquals("Bob", bob.getName());
+        assertNull(bob.getAge());
+
+        assertEquals(1, wrapper.update(new Person(1, "Alice", 30), new Person(1, "Alice", 31)));
+        assertEquals(Integer.valueOf(31), wrapper.select("id = 1").iterator().next().getAge());
+
+        assertEquals(1, wrapper.delete(new Person(1, "Alice", 31)));
+        assertEquals(1, wrapper.select().size());
+    }
+
+    @Test
+    public void updateAndDeleteMatchOnPrimaryKey() throws Exception {
+        wrapper.insert(new Person(1, "Alice", null));
+        wrapper.insert(new Person(2, "Bob", 40));
+
+        // A NULL column no longer prevents the match
+        assertEquals(1, wrapper.update(new Person(1, "Alicia", 30)));
+        assertEquals("Alicia", wrapper.findById(1).getName());
+        assertNull(wrapper.findById(3));
+
+        assertEquals(2, wrapper.updateAll(Arrays.asList(new Person(1, "Alice", 31), new Person(2, "Bob", 41))).length);
+        assertEquals(Integer.valueOf(41), wrapper.findById(2).getAge());
+
+        assertEquals(1, wrapper.delete(new Person(1, "stale", 0)));
+        assertNull(wrapper.findById(1));
+    }
+
+    @Test
+    public void saveWritesOnlyChangedColumns() throws Exception {
+        wrapper.setDirtyTracking(true);
+        wrapper.insert(new Person(1, "Alice", 30));
+
+        Person alice = wrapper.findById(1);
+        assertEquals(0, wrapper.save(alice));
+
+        // A concurrent change of another column must survive the save
+        execute(handler, "UPDATE person SET age = 31 WHERE id = 1");
+
+        alice.setName("Alicia");
+        assertEquals(1, wrapper.save(alice));
+        assertEquals(0, wrapper.save(alice));
+
+        Person stored = wrapper.findById(1);
+        assertEquals("Alicia", stored.getName());
+        assertEquals(Integer.valueOf(31), stored.getAge());
+    }
+
+    @Test
+    public void wrappersOfOneClassShareTheirMetadata() throws Exception {
+        DatabaseAnnotationWrapper<Person> other = new DatabaseAnnotationWrapper<>(Person.class, handler);
+
+        assertSame(wrapper.getEntityMapper(), other.getEntityMapper());
+        assertSame(wrapper.getColumnNames(), other.getColumnNames());
+
+        other.insert(new Person(1, "Alice", 30));
+        assertEquals("Alice", wrapper.findById(1).getName());
+    }
+}
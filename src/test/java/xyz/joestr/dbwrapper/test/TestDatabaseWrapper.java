@@ -0,0 +1,78 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseWrapable;
+import xyz.joestr.dbwrapper.DatabaseWrapper;
+
+/**
+ * Checks the wrapper of classes which describe their own mapping.
+ *
+ * @author Joel
+ */
+public class TestDatabaseWrapper extends PersonTableFixture {
+
+    @Test
+    public void namesAreReadFromTheClass() throws Exception {
+        DatabaseWrapper<WrapablePerson> wrapablePersons = new DatabaseWrapper<>(WrapablePerson.class, handler);
+
+        WrapablePerson person = new WrapablePerson();
+        person.id = 1;
+        person.name = "Alice";
+        wrapablePersons.insert(person);
+
+        assertEquals("Alice", wrapablePersons.findById(1).name);
+        assertEquals("Alice", wrapper.findById(1).getName());
+    }
+
+    @Test
+    public void failingConstructorIsReportedAndRetried() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                new DatabaseWrapper<>(FailingWrapable.class, handler);
+                fail("Expected an InstantiationException");
+            } catch (InstantiationException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    public static class WrapablePerson implements DatabaseWrapable {
+
+        private int id;
+        private String name;
+
+        @Override
+        public String databaseTableName() {
+            return "person";
+        }
+
+        @Override
+        public Collection<String> databaseColumnNames() {
+            return Arrays.asList("id", "name");
+        }
+
+        @Override
+        public Collection<String> classFieldNames() {
+            return Arrays.asList("id", "name");
+        }
+
+        @Override
+        public Collection<String> databaseKeyColumnNames() {
+            return Arrays.asList("id");
+        }
+    }
+
+    public static class FailingWrapable extends WrapablePerson {
+
+        public FailingWrapable() {
+            throw new IllegalStateException("not constructible");
+        }
+    }
+}
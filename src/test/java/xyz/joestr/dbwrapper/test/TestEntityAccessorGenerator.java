@@ -0,0 +1,119 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.EntityAccessor;
+import xyz.joestr.dbwrapper.EntityAccessorGenerator;
+
+/**
+ *
+ * @author Joel
+ */
+public class TestEntityAccessorGenerator {
+
+    private static final List<String> FIELD_NAMES = Arrays.asList(
+        "id", "amount", "ratio", "active", "label", "count", "payload"
+    );
+
+    @Test
+    public void hydratesAndBindsAllFieldTypes() throws SQLException {
+        EntityAccessor<Sample> accessor = EntityAccessorGenerator.generate(Sample.class, FIELD_NAMES);
+
+        assertNotNull(accessor);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:")) {
+
+            Sample sample;
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "SELECT 7, CAST(9000000000 AS BIGINT), 0.5, TRUE, 'label', CAST(NULL AS INT), X'0102'");
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                resultSet.next();
+
+                sample = accessor.newInstance();
+                accessor.hydrate(sample, resultSet);
+            }
+
+            assertEquals(7, sample.id);
+            assertEquals(9000000000L, sample.amount);
+            assertEquals(0.5, sample.ratio, 0.0);
+            assertTrue(sample.active);
+            assertEquals("label", sample.label);
+            assertNull(sample.count);
+            assertArrayEquals(new byte[]{1, 2}, sample.payload);
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "SELECT CAST(? AS INT), CAST(? AS INT), CAST(? AS BIGINT), CAST(? AS DOUBLE), CAST(? AS BOOLEAN), CAST(? AS VARCHAR), CAST(? AS INT), CAST(? AS VARBINARY)")) {
+
+                preparedStatement.setInt(1, 42);
+                accessor.bind(preparedStatement, sample, 1);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                    resultSet.next();
+
+                    assertEquals(42, resultSet.getInt(1));
+                    assertEquals(7, resultSet.getInt(2));
+                    assertEquals(9000000000L, resultSet.getLong(3));
+                    assertEquals("label", resultSet.getString(6));
+                    assertNull(resultSet.getObject(7));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void primitiveFieldKeepsDefaultOnNull() throws SQLException {
+        EntityAccessor<Sample> accessor = EntityAccessorGenerator.generate(Sample.class, Arrays.asList("id"));
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+            PreparedStatement preparedStatement = connection.prepareStatement("SELECT CAST(NULL AS INT)");
+            ResultSet resultSet = preparedStatement.executeQuery()) {
+
+            resultSet.next();
+
+            Sample sample = accessor.newInstance();
+            accessor.hydrate(sample, resultSet);
+
+            assertEquals(-1, sample.id);
+        }
+    }
+
+    @Test
+    public void finalFieldsFallBack() {
+        assertNull(EntityAccessorGenerator.generate(Immutable.class, Arrays.asList("id")));
+    }
+
+    private static class Sample {
+
+        private int id = -1;
+        private long amount;
+        private double ratio;
+        private boolean active;
+        private String label;
+        private Integer count = 3;
+        private byte[] payload;
+
+        private Sample() {
+        }
+    }
+
+    private static class Immutable {
+
+        private final int id = 0;
+    }
+}
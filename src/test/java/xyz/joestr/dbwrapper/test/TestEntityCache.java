@@ -0,0 +1,168 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.EntityCache;
+import xyz.joestr.dbwrapper.EntityIterator;
+import xyz.joestr.dbwrapper.annotations.WrappedField;
+import xyz.joestr.dbwrapper.annotations.WrappedTable;
+
+/**
+ * Checks the entity cache of a wrapper.
+ *
+ * @author Joel
+ */
+public class TestEntityCache extends PersonTableFixture {
+
+    @Test
+    public void entityCacheServesPointLookups() throws Exception {
+        EntityCache cache = new EntityCache(100);
+        wrapper.setEntityCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+
+        Person alice = wrapper.findById(1);
+        assertEquals("Alice", alice.getName());
+        assertEquals(1, cache.getHitCount());
+
+        // Hits hand out new objects
+        alice.setName("changed locally");
+        assertEquals("Alice", wrapper.findById(1).getName());
+
+        wrapper.update(new Person(1, "Alicia", 31));
+        assertEquals("Alicia", wrapper.findById(1).getName());
+        assertEquals(0, cache.getMissCount());
+
+        wrapper.delete(new Person(1, "Alicia", 31));
+        assertNull(wrapper.findById(1));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void cachedTimestampsAreCopied() throws Exception {
+        execute(handler, "CREATE TABLE event (id INT PRIMARY KEY, at TIMESTAMP)");
+
+        DatabaseAnnotationWrapper<Event> events = new DatabaseAnnotationWrapper<>(Event.class, handler);
+        events.setEntityCache(new EntityCache(100));
+
+        Event event = new Event(1, Timestamp.valueOf("2020-01-01 00:00:00"));
+        events.insert(event);
+
+        // Neither the written object nor a hit share the cached timestamp
+        event.at.setTime(0);
+        Event hit = events.findById(1);
+        assertEquals(Timestamp.valueOf("2020-01-01 00:00:00"), hit.at);
+
+        hit.at.setTime(0);
+        assertEquals(Timestamp.valueOf("2020-01-01 00:00:00"), events.findById(1).at);
+    }
+
+    @Test
+    public void entityCacheEvictsLeastRecentlyUsed() throws Exception {
+        EntityCache cache = new EntityCache(2);
+        wrapper.setEntityCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+        wrapper.insert(new Person(2, "Bob", 40));
+        wrapper.findById(1);
+        wrapper.insert(new Person(3, "Carol", 50));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        wrapper.findById(2);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void updateWhichMatchesNoEntryIsNotCached() throws Exception {
+        EntityCache cache = new EntityCache(100);
+        wrapper.setEntityCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+
+        assertEquals(0, wrapper.update(new Person(2, "Bob", 40)));
+        assertEquals(0, wrapper.updateAll(Arrays.asList(new Person(1, "Alicia", 31), new Person(3, "Carol", 50)))[1]);
+
+        assertNull(wrapper.findById(2));
+        assertNull(wrapper.findById(3));
+        assertEquals("Alicia", wrapper.findById(1).getName());
+    }
+
+    @Test
+    public void rowsWrittenInATransactionAreCachedOnCommitOnly() throws Exception {
+        EntityCache cache = new EntityCache(100);
+        wrapper.setEntityCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+
+        try {
+            handler.inTransaction(tx -> {
+                wrapper.update(new Person(1, "Alicia", 31));
+                throw new IllegalStateException("abort");
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        assertEquals("Alice", wrapper.findById(1).getName());
+
+        handler.inTransaction(tx -> {
+            wrapper.update(new Person(1, "Alicia", 31));
+
+            // Other threads still read the committed row
+            assertEquals("Alice", handler.executeAsync(() -> wrapper.findById(1)).join().getName());
+            assertEquals("Alicia", wrapper.findById(1).getName());
+
+            return null;
+        });
+
+        long hits = cache.getHitCount();
+
+        assertEquals("Alicia", wrapper.findById(1).getName());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void rowsReadBeforeAWriteAreNotCached() throws Exception {
+        EntityCache cache = new EntityCache(100);
+        wrapper.setEntityCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+        cache.invalidateAll();
+
+        try (EntityIterator<Person> persons = wrapper.iterate()) {
+            wrapper.update(new Person(1, "Alicia", 31));
+
+            // The iterator may still hand out the old row
+            persons.next();
+        }
+
+        assertEquals("Alicia", wrapper.findById(1).getName());
+    }
+
+    @WrappedTable(name = "event")
+    public static class Event {
+
+        @WrappedField(name = "id", primaryKey = true)
+        private int id;
+
+        @WrappedField(name = "at")
+        private Timestamp at;
+
+        public Event() {
+        }
+
+        public Event(int id, Timestamp at) {
+            this.id = id;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+import xyz.joestr.dbwrapper.special.mariadb.v10_0_38;
+
+/**
+ * Checks that the foreign key helpers never leave a pooled connection with
+ * the checks disabled.
+ *
+ * @author Joel
+ */
+public class TestForeignKeyChecks {
+
+    private DatabaseConnectionHandler handler;
+    private v10_0_38 mariaDB;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = new DatabaseConnectionHandler(PersonTableFixture.newConnectionString(";MODE=MySQL"), 1, 2);
+        mariaDB = new v10_0_38(handler);
+
+        PersonTableFixture.execute(handler, "CREATE TABLE parent (id INT PRIMARY KEY)");
+        PersonTableFixture.execute(handler, "CREATE TABLE child (id INT PRIMARY KEY, parent_id INT REFERENCES parent(id))");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        handler.close();
+    }
+
+    @Test
+    public void checksAreDisabledOnlyInsideTheCallback() throws Exception {
+        Connection used = mariaDB.withoutForeignKeyChecks(tx -> {
+            PersonTableFixture.execute(handler, "INSERT INTO child VALUES (1, 42)");
+            return tx.getConnection();
+        });
+
+        assertForeignKeysChecked();
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+
+        // The pooled connection went back with the checks enabled
+        Connection next = handler.acquireConnection();
+        try {
+            assertSame(used, next);
+        } finally {
+            handler.releaseConnection(next);
+        }
+    }
+
+    @Test
+    public void checksAreEnabledAgainWhenTheCallbackFails() throws Exception {
+        try {
+            mariaDB.withoutForeignKeyChecks(tx -> {
+                throw new IllegalStateException("abort");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("abort", e.getMessage());
+        }
+
+        assertForeignKeysChecked();
+    }
+
+    @Test
+    public void pooledConnectionsCanNotBeChangedOutsideOfATransaction() throws Exception {
+        try {
+            mariaDB.disableForeignKeyChecks();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        assertForeignKeysChecked();
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+
+        handler.inTransaction(tx -> {
+            mariaDB.disableForeignKeyChecks();
+            PersonTableFixture.execute(handler, "INSERT INTO child VALUES (2, 42)");
+            return mariaDB.enableForeignKeyCheck();
+        });
+
+        assertForeignKeysChecked();
+    }
+
+    private void assertForeignKeysChecked() throws SQLException {
+        try {
+            PersonTableFixture.execute(handler, "INSERT INTO child VALUES (100, 4711)");
+            fail("Foreign key checks are disabled");
+        } catch (SQLException expected) {
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseMetrics;
+import xyz.joestr.dbwrapper.DatabaseOperation;
+import xyz.joestr.dbwrapper.DatabaseSlowQueryLog;
+import xyz.joestr.dbwrapper.LatencyHistogram;
+
+/**
+ * Checks the metrics listener, the histograms and the slow query log.
+ *
+ * @author Joel
+ */
+public class TestMetrics extends PersonTableFixture {
+
+    @Test
+    public void metricsRecordOperationsPerTable() throws Exception {
+        DatabaseMetrics metrics = new DatabaseMetrics();
+        handler.setMetricsListener(metrics);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+        wrapper.insertAll(Arrays.asList(new Person(2, "Bob", 40), new Person(3, "Carol", 50)));
+        assertEquals(3, wrapper.select().size());
+
+        try {
+            wrapper.insert(new Person(1, "Alice", 30));
+            fail("Duplicate key was inserted");
+        } catch (SQLException expected) {
+        }
+
+        DatabaseMetrics.OperationStatistics inserts = metrics.getOperation("person", DatabaseOperation.INSERT);
+        assertEquals(2, inserts.getExecuteTime().getCount());
+        assertEquals(3, inserts.getRowCount());
+        assertEquals(1, inserts.getErrorCount());
+
+        DatabaseMetrics.OperationStatistics selects = metrics.getOperation("person", DatabaseOperation.SELECT);
+        assertEquals(3, selects.getRowCount());
+        assertEquals(1, selects.getHydrateTime().getCount());
+        assertTrue(metrics.getConnectionAcquireTime().getCount() >= 4);
+        assertTrue(metrics.getStatementPrepareTime().getCount() >= 4);
+
+        ObjectName objectName = metrics.registerMBean("wrapper-test");
+        try {
+            CompositeData[] operations = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(objectName, "Operations");
+            assertEquals(2, operations.length);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "ErrorCount"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+    }
+
+    @Test
+    public void slowQueryLogWritesStatementsAsynchronously() throws Exception {
+        List<LogRecord> records = new CopyOnWriteArrayList<>();
+        Handler logHandler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(DatabaseSlowQueryLog.class.getName());
+        logger.addHandler(logHandler);
+
+        DatabaseSlowQueryLog slowQueryLog = new DatabaseSlowQueryLog(1, TimeUnit.HOURS);
+        try {
+            handler.setSlowQueryLog(slowQueryLog);
+
+            wrapper.insert(new Person(1, "Alice", 30));
+
+            slowQueryLog.setSampleRate(1);
+            wrapper.insert(new Person(2, "Bob", 40));
+
+            slowQueryLog.setRedactParameters(true);
+            assertEquals(2, wrapper.select().size());
+
+            slowQueryLog.setThreshold(0, TimeUnit.NANOSECONDS);
+            wrapper.delete(new Person(2, "Bob", 40));
+        } finally {
+            handler.setSlowQueryLog(null);
+            slowQueryLog.close();
+            logger.removeHandler(logHandler);
+        }
+
+        assertEquals(3, slowQueryLog.getLoggedCount());
+        assertEquals(3, records.size());
+
+        assertEquals(Level.INFO, records.get(0).getLevel());
+        assertTrue(records.get(0).getMessage().contains(Person.class.getName()));
+        assertTrue(records.get(0).getMessage().contains("INSERT INTO person"));
+        assertTrue(records.get(0).getMessage().endsWith("[2, 'Bob', 40]"));
+
+        assertTrue(records.get(1).getMessage().contains("2 rows"));
+        assertTrue(records.get(1).getMessage().endsWith("[0 parameters redacted]"));
+
+        assertEquals(Level.WARNING, records.get(2).getLevel());
+        assertTrue(records.get(2).getMessage().endsWith("[1 parameters redacted]"));
+    }
+
+    @Test
+    public void latencyHistogramKeepsPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaximum());
+        assertEquals(5_000_000, histogram.getPercentile(50), 5_000_000 * 0.07);
+        assertEquals(9_900_000, histogram.getPercentile(99), 9_900_000 * 0.07);
+        assertEquals(10_000_000, histogram.getPercentile(100));
+    }
+}
@@ -0,0 +1,181 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseCriteria;
+import xyz.joestr.dbwrapper.DatabasePage;
+import xyz.joestr.dbwrapper.DatabasePartitioning;
+import xyz.joestr.dbwrapper.EntityIterator;
+
+/**
+ * Checks criteria, streams, paging, projections and aggregates.
+ *
+ * @author Joel
+ */
+public class TestQueries extends PersonTableFixture {
+
+    @Test
+    public void selectWithCriteria() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            wrapper.insert(new Person(i, "Person " + i, i % 2 == 0 ? i : null));
+        }
+
+        List<Person> persons = new ArrayList<>(wrapper.select(
+            new DatabaseCriteria()
+                .between("age", 2, 8)
+                .in("id", Arrays.asList(2, 4, 6))
+                .orderByDescending("id")
+                .limit(2)
+        ));
+
+        assertEquals(2, persons.size());
+        assertEquals(6, persons.get(0).getId());
+        assertEquals(4, persons.get(1).getId());
+
+        assertEquals(5, wrapper.select(new DatabaseCriteria().equal("age", null)).size());
+        assertEquals(0, wrapper.select(new DatabaseCriteria().in("id", new ArrayList<>())).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void criteriaRejectsUnknownFields() throws Exception {
+        wrapper.select(new DatabaseCriteria().equal("unknown", 1));
+    }
+
+    @Test
+    public void streamGivesConnectionBackOnClose() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            wrapper.insert(new Person(i, "Person " + i, i));
+        }
+
+        wrapper.setFetchSize(3);
+
+        try (Stream<Person> persons = wrapper.stream("age >= 5")) {
+            assertEquals(1, handler.getConnectionPool().getLeasedConnections());
+            assertEquals(5, persons.count());
+        }
+
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+
+        try (EntityIterator<Person> iterator = wrapper.iterate()) {
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(10, count);
+            assertFalse(iterator.hasNext());
+        }
+
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+    }
+
+    @Test
+    public void parallelScanReadsEveryRowOnce() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = -20; i < 80; i += 3) {
+            persons.add(new Person(i, "Person " + i, i));
+        }
+        wrapper.insertAll(persons);
+
+        for (DatabasePartitioning partitioning : DatabasePartitioning.values()) {
+            List<Integer> ids = new ArrayList<>();
+            for (Person person : wrapper.selectParallel(4, partitioning)) {
+                ids.add(person.getId());
+            }
+            ids.sort(null);
+
+            List<Integer> expected = new ArrayList<>();
+            for (Person person : persons) {
+                expected.add(person.getId());
+            }
+            assertEquals(expected, ids);
+        }
+
+        assertEquals(persons.size(), wrapper.streamParallel(8).count());
+        assertEquals(20, wrapper.streamParallel(
+            3, DatabasePartitioning.MODULO, new DatabaseCriteria().greaterThanOrEqual("age", 20)
+        ).count());
+        assertEquals(1, wrapper.selectParallel(100, DatabasePartitioning.RANGE, new DatabaseCriteria().equal("id", 1)).size());
+        assertEquals(0, wrapper.selectParallel(4, DatabasePartitioning.RANGE, new DatabaseCriteria().equal("id", 2)).size());
+    }
+
+    @Test
+    public void keysetPaginationContinuesAfterLastKey() throws Exception {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            persons.add(new Person(i * 2, "Person " + i, i));
+        }
+        wrapper.insertAll(persons);
+
+        DatabasePage<Person> first = wrapper.page(null, 10);
+        assertEquals(10, first.getContent().size());
+        assertEquals(0, first.getContent().get(0).getId());
+        assertEquals(Arrays.asList(18), first.getContinuationKey());
+
+        DatabasePage<Person> second = wrapper.page(first.getContinuationKey(), 10);
+        assertEquals(20, second.getContent().get(0).getId());
+
+        List<Integer> sizes = new ArrayList<>();
+        wrapper.pages(10).forEach(page -> sizes.add(page.getContent().size()));
+        assertEquals(Arrays.asList(10, 10, 5), sizes);
+
+        DatabasePage<Person> filtered = wrapper.page(new DatabaseCriteria().greaterThanOrEqual("age", 20), null, 5);
+        assertEquals(5, filtered.getContent().size());
+        assertFalse(filtered.hasNext());
+    }
+
+    @Test
+    public void projectionsReadOnlySelectedColumns() throws Exception {
+        wrapper.insert(new Person(1, "Alice", 30));
+        wrapper.insert(new Person(2, "Bob", 40));
+
+        Collection<Person> persons = wrapper.selectFields(
+            Arrays.asList("name"), new DatabaseCriteria().equal("id", 2)
+        );
+        assertEquals(1, persons.size());
+        Person bob = persons.iterator().next();
+        assertEquals("Bob", bob.getName());
+        assertEquals(0, bob.getId());
+        assertNull(bob.getAge());
+
+        List<String> names = new ArrayList<>();
+        for (PersonName personName : wrapper.selectAs(PersonName.class, new DatabaseCriteria().orderBy("id"))) {
+            names.add(personName.getName());
+        }
+        assertEquals(Arrays.asList("Alice", "Bob"), names);
+    }
+
+    @Test
+    public void aggregatesAreComputedOnTheServer() throws Exception {
+        assertEquals(0, wrapper.count());
+        assertFalse(wrapper.exists(new DatabaseCriteria()));
+        assertNull(wrapper.max("age"));
+        assertEquals(BigDecimal.ZERO, wrapper.sum("age"));
+
+        for (int i = 1; i <= 10; i++) {
+            wrapper.insert(new Person(i, "Person " + i, i % 2 == 0 ? i * 10 : null));
+        }
+
+        assertEquals(10, wrapper.count());
+        assertEquals(5, wrapper.count(new DatabaseCriteria().isNull("age")));
+        assertTrue(wrapper.exists(new DatabaseCriteria().equal("name", "Person 3")));
+        assertFalse(wrapper.exists(new DatabaseCriteria().greaterThan("age", 100)));
+
+        Integer min = wrapper.min("age");
+        Integer max = wrapper.max("id", new DatabaseCriteria().lessThan("age", 50));
+        assertEquals(Integer.valueOf(20), min);
+        assertEquals(Integer.valueOf(4), max);
+        assertEquals(0, new BigDecimal(300).compareTo(wrapper.sum("age")));
+    }
+}
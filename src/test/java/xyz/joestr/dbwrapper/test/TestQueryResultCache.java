@@ -0,0 +1,54 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseCriteria;
+import xyz.joestr.dbwrapper.QueryResultCache;
+
+/**
+ * Checks the query result cache of a handler.
+ *
+ * @author Joel
+ */
+public class TestQueryResultCache extends PersonTableFixture {
+
+    @Test
+    public void queryResultCacheIsInvalidatedByWrites() throws Exception {
+        QueryResultCache cache = new QueryResultCache(100);
+        handler.setQueryResultCache(cache);
+
+        wrapper.insert(new Person(1, "Alice", 30));
+        DatabaseCriteria adults = new DatabaseCriteria().greaterThanOrEqual("age", 18);
+
+        assertEquals(1, wrapper.select(adults).size());
+        assertEquals(1, wrapper.select(adults).size());
+        assertEquals(1, cache.getHitCount());
+
+        wrapper.insertAll(Arrays.asList(new Person(2, "Bob", 40), new Person(3, "Carol", 12)));
+
+        assertEquals(2, wrapper.select(adults).size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void queryResultCacheStaysWithinRowBudget() throws Exception {
+        QueryResultCache cache = new QueryResultCache(2, true);
+        handler.setQueryResultCache(cache);
+
+        wrapper.insertAll(Arrays.asList(new Person(1, "Alice", 30), new Person(2, "Bob", 40)));
+
+        Collection<Person> all = wrapper.select();
+        assertSame(all, wrapper.select());
+
+        wrapper.select("id = 1");
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getRowCount() <= 2);
+    }
+}
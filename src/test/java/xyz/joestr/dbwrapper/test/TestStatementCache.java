@@ -0,0 +1,67 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+
+/**
+ *
+ * @author Joel
+ */
+public class TestStatementCache {
+
+    private static final String CONNECTION_STRING = "jdbc:h2:mem:statements;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void releasedStatementIsReused() throws SQLException {
+        try (DatabaseConnectionHandler handler = new DatabaseConnectionHandler(CONNECTION_STRING, 0, 1)) {
+
+            Connection connection = handler.acquireConnection();
+
+            try {
+                PreparedStatement first = handler.prepareStatement(connection, "SELECT 1");
+                PreparedStatement concurrent = handler.prepareStatement(connection, "SELECT 1");
+
+                assertNotSame(first, concurrent);
+
+                handler.releaseStatement(connection, concurrent);
+                handler.releaseStatement(connection, first);
+
+                assertTrue(concurrent.isClosed());
+                assertSame(first, handler.prepareStatement(connection, "SELECT 1"));
+                handler.releaseStatement(connection, first);
+            } finally {
+                handler.releaseConnection(connection);
+            }
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementIsClosed() throws SQLException {
+        try (DatabaseConnectionHandler handler = new DatabaseConnectionHandler(CONNECTION_STRING, 0, 1)) {
+
+            handler.setStatementCacheSize(1);
+
+            Connection connection = handler.acquireConnection();
+
+            try {
+                PreparedStatement first = handler.prepareStatement(connection, "SELECT 1");
+                handler.releaseStatement(connection, first);
+
+                PreparedStatement second = handler.prepareStatement(connection, "SELECT 2");
+                handler.releaseStatement(connection, second);
+
+                assertTrue(first.isClosed());
+            } finally {
+                handler.releaseConnection(connection);
+            }
+        }
+    }
+}
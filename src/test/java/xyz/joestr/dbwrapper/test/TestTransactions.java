@@ -0,0 +1,93 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.EntityCache;
+
+/**
+ * Checks transactions spanning several operations.
+ *
+ * @author Joel
+ */
+public class TestTransactions extends PersonTableFixture {
+
+    @Test
+    public void transactionSpansOperations() throws Exception {
+        Connection used = handler.inTransaction(Connection.TRANSACTION_SERIALIZABLE, tx -> {
+            wrapper.insert(new Person(1, "Alice", 30));
+            wrapper.insertAll(Arrays.asList(new Person(2, "Bob", 40), new Person(3, "Carol", 50)));
+
+            assertEquals(3, wrapper.select().size());
+            assertEquals(Connection.TRANSACTION_SERIALIZABLE, tx.getIsolationLevel());
+
+            return tx.getConnection();
+        });
+
+        assertTrue(used.getAutoCommit());
+        assertNull(handler.getTransaction());
+        assertEquals(3, wrapper.select().size());
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+    }
+
+    @Test
+    public void transactionRollsBackOnFailure() throws Exception {
+        EntityCache cache = new EntityCache(100);
+        wrapper.setEntityCache(cache);
+
+        try {
+            handler.inTransaction(tx -> {
+                wrapper.insert(new Person(1, "Alice", 30));
+                throw new IllegalStateException("abort");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("abort", e.getMessage());
+        }
+
+        assertEquals(0, cache.size());
+        assertNull(wrapper.findById(1));
+    }
+
+    @Test
+    public void brokenConnectionKeepsTheFailureOfTheTransaction() throws Exception {
+        try {
+            handler.inTransaction(tx -> {
+                tx.getConnection().close();
+                throw new IllegalStateException("abort");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("abort", e.getMessage());
+            assertTrue(e.getSuppressed().length > 0);
+        }
+
+        // The broken connection is not handed out again
+        assertEquals(0, handler.getConnectionPool().getLeasedConnections());
+        wrapper.insert(new Person(1, "Alice", 30));
+        assertEquals(1, wrapper.select().size());
+    }
+
+    @Test
+    public void savepointUndoesPartOfTransaction() throws Exception {
+        handler.inTransaction(tx -> {
+            wrapper.insert(new Person(1, "Alice", 30));
+
+            Savepoint savepoint = tx.setSavepoint();
+            wrapper.insert(new Person(2, "Bob", 40));
+            tx.rollback(savepoint);
+
+            return null;
+        });
+
+        assertEquals(1, wrapper.select().size());
+        assertNull(wrapper.findById(2));
+    }
+}
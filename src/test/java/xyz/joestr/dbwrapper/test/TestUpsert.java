@@ -0,0 +1,182 @@
+package xyz.joestr.dbwrapper.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+import org.junit.Test;
+
+import xyz.joestr.dbwrapper.DatabaseAnnotationWrapper;
+import xyz.joestr.dbwrapper.DatabaseConnectionHandler;
+import xyz.joestr.dbwrapper.DatabaseMetrics;
+import xyz.joestr.dbwrapper.DatabaseOperation;
+import xyz.joestr.dbwrapper.special.mariadb.MariaDBDialect;
+
+/**
+ * Checks upserts with and without a native statement.
+ *
+ * @author Joel
+ */
+public class TestUpsert extends PersonTableFixture {
+
+    @Test
+    public void upsertFallsBackToUpdateThenInsert() throws Exception {
+        wrapper.insert(new Person(1, "Alice", 30));
+
+        assertEquals(1, wrapper.upsert(new Person(1, "Alicia", 31)));
+        assertEquals(2, wrapper.upsertAll(Arrays.asList(new Person(1, "Alice", 32), new Person(2, "Bob", 40))).length);
+
+        assertEquals(Integer.valueOf(32), wrapper.findById(1).getAge());
+        assertEquals("Bob", wrapper.findById(2).getName());
+    }
+
+    @Test
+    public void upsertUsesOnDuplicateKeyUpdate() throws Exception {
+        DatabaseConnectionHandler mysqlHandler = new DatabaseConnectionHandler(newConnectionString(";MODE=MySQL"), 1, 2);
+        try {
+            mysqlHandler.setDialect(new MariaDBDialect());
+            createPersonTable(mysqlHandler);
+
+            DatabaseAnnotationWrapper<Person> mysqlWrapper = new DatabaseAnnotationWrapper<>(Person.class, mysqlHandler);
+
+            mysqlWrapper.upsert(new Person(1, "Alice", 30));
+            mysqlWrapper.upsertAll(Arrays.asList(new Person(1, "Alicia", 31), new Person(2, "Bob", 40)));
+
+            assertEquals("Alicia", mysqlWrapper.findById(1).getName());
+            assertEquals(2, mysqlWrapper.select().size());
+        } finally {
+            mysqlHandler.close();
+        }
+    }
+
+    @Test
+    public void upsertDoesNotTrustBatchCounts() throws Exception {
+        Driver driver = new NoInfoDriver();
+        DriverManager.registerDriver(driver);
+
+        String connectionString = newConnectionString("");
+        DatabaseConnectionHandler noInfoHandler = new DatabaseConnectionHandler(
+            connectionString.replace("jdbc:h2:", NoInfoDriver.PREFIX), 1, 2
+        );
+        try {
+            createPersonTable(noInfoHandler);
+
+            DatabaseMetrics metrics = new DatabaseMetrics();
+            noInfoHandler.setMetricsListener(metrics);
+
+            DatabaseAnnotationWrapper<Person> noInfoWrapper = new DatabaseAnnotationWrapper<>(Person.class, noInfoHandler);
+            noInfoWrapper.insert(new Person(1, "Alice", 30));
+
+            // Every batch of this driver answers with SUCCESS_NO_INFO
+            noInfoWrapper.upsertAll(Arrays.asList(new Person(1, "Alicia", 31), new Person(2, "Bob", 40), new Person(3, "Carol", 50)));
+
+            assertEquals("Alicia", noInfoWrapper.findById(1).getName());
+            assertEquals("Bob", noInfoWrapper.findById(2).getName());
+            assertEquals("Carol", noInfoWrapper.findById(3).getName());
+
+            assertEquals(3, metrics.getOperation("person", DatabaseOperation.UPDATE).getExecuteTime().getCount());
+            assertEquals(1, metrics.getOperation("person", DatabaseOperation.UPDATE).getRowCount());
+            assertEquals(2, metrics.getOperation("person", DatabaseOperation.INSERT).getExecuteTime().getCount());
+            assertEquals(3, metrics.getOperation("person", DatabaseOperation.INSERT).getRowCount());
+            assertEquals(0, metrics.getOperation("person", DatabaseOperation.UPSERT).getExecuteTime().getCount());
+        } finally {
+            noInfoHandler.close();
+            DriverManager.deregisterDriver(driver);
+        }
+    }
+
+    /**
+     * Delegates to H2, but answers every batch with
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} like some drivers do.
+     */
+    private static final class NoInfoDriver implements Driver {
+
+        private static final String PREFIX = "jdbc:noinfo:";
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!this.acceptsURL(url)) {
+                return null;
+            }
+
+            Connection connection = DriverManager.getConnection("jdbc:h2:" + url.substring(PREFIX.length()), info);
+
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+
+                    if (result instanceof PreparedStatement) {
+                        return noInfo((PreparedStatement) result);
+                    }
+
+                    return result;
+                }
+            );
+        }
+
+        private static PreparedStatement noInfo(PreparedStatement preparedStatement) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    Object result = invoke(preparedStatement, method, args);
+
+                    if ("executeBatch".equals(method.getName())) {
+                        int[] updateCounts = (int[]) result;
+                        Arrays.fill(updateCounts, Statement.SUCCESS_NO_INFO);
+                    }
+
+                    return result;
+                }
+            );
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(PREFIX);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}